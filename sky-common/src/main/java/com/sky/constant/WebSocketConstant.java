@@ -0,0 +1,14 @@
+package com.sky.constant;
+
+/**
+ * WebSocket会话分组常量
+ */
+public class WebSocketConstant {
+
+    // 商家分组，接收来单提醒和客户催单；角色在 sky.websocket.order-alert-roles 中的员工会话才会加入
+    public static final String GROUP_SHOP = "shop";
+
+    // 角色分组的前缀，每个已认证的会话加入 role:<员工角色>
+    public static final String GROUP_ROLE_PREFIX = "role:";
+
+}
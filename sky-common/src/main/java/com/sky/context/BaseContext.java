@@ -1,8 +1,15 @@
 package com.sky.context;
 
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * 请求上下文，保存当前登录用户的id
+ * 由拦截器在请求开始时设置、在请求结束时清除；提交到其他线程执行的任务需通过 wrap 方法携带上下文
+ */
 public class BaseContext {
 
-    public static ThreadLocal<Long> threadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<Long> threadLocal = new ThreadLocal<>();
 
     public static void setCurrentId(Long id) {
         threadLocal.set(id);
@@ -16,4 +23,68 @@ public class BaseContext {
         threadLocal.remove();
     }
 
+    /**
+     * 包装任务，在执行任务的线程中恢复提交任务时的上下文，执行结束后还原该线程原有的上下文
+     *
+     * @param task
+     * @return
+     */
+    public static Runnable wrap(Runnable task) {
+        Long capturedId = getCurrentId();
+        return () -> {
+            Long previousId = replace(capturedId);
+            try {
+                task.run();
+            } finally {
+                replace(previousId);
+            }
+        };
+    }
+
+    /**
+     * 包装任务，在执行任务的线程中恢复提交任务时的上下文，执行结束后还原该线程原有的上下文
+     *
+     * @param task
+     * @return
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Long capturedId = getCurrentId();
+        return () -> {
+            Long previousId = replace(capturedId);
+            try {
+                return task.call();
+            } finally {
+                replace(previousId);
+            }
+        };
+    }
+
+    /**
+     * 包装任务，用于 CompletableFuture.supplyAsync 等场景
+     *
+     * @param task
+     * @return
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        Long capturedId = getCurrentId();
+        return () -> {
+            Long previousId = replace(capturedId);
+            try {
+                return task.get();
+            } finally {
+                replace(previousId);
+            }
+        };
+    }
+
+    private static Long replace(Long id) {
+        Long previousId = threadLocal.get();
+        if (id == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(id);
+        }
+        return previousId;
+    }
+
 }
@@ -0,0 +1,14 @@
+package com.sky.context;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 线程池任务装饰器，使提交到线程池的任务携带提交时的请求上下文
+ */
+public class ContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return BaseContext.wrap(runnable);
+    }
+}
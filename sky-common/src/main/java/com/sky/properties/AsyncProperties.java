@@ -0,0 +1,43 @@
+package com.sky.properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.async")
+@Data
+public class AsyncProperties {
+
+    /**
+     * 推送订单提醒的线程池
+     */
+    private Pool notify = new Pool(2, 4, 1000);
+
+    /**
+     * 清理缓存的线程池
+     */
+    private Pool cache = new Pool(1, 2, 200);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        /**
+         * 核心线程数
+         */
+        private int coreSize;
+
+        /**
+         * 最大线程数，队列已满时才会创建核心线程以外的线程
+         */
+        private int maxSize;
+
+        /**
+         * 等待队列的容量，线程和队列都已满时由提交任务的线程自己执行
+         */
+        private int queueCapacity;
+    }
+}
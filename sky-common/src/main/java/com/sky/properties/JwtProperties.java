@@ -23,4 +23,9 @@ public class JwtProperties {
     private long userTtl;
     private String userTokenName;
 
+    /**
+     * 管理端、用户端各自最多缓存的已校验令牌数量
+     */
+    private long tokenCacheSize = 10000;
+
 }
@@ -0,0 +1,32 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.login")
+@Data
+public class LoginProperties {
+
+    /**
+     * BCrypt的计算强度（4~31），每加1计算耗时翻倍
+     */
+    private int bcryptStrength = 10;
+
+    /**
+     * 同一用户名在锁定时间内允许的最大失败次数
+     */
+    private int maxUsernameFailures = 5;
+
+    /**
+     * 同一IP在锁定时间内允许的最大失败次数
+     */
+    private int maxIpFailures = 20;
+
+    /**
+     * 失败次数的统计时间，同时也是达到上限后的锁定时间（分钟）
+     */
+    private long lockMinutes = 15;
+
+}
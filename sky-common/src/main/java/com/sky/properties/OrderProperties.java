@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order")
+@Data
+public class OrderProperties {
+
+    /**
+     * 待付款订单的支付超时时间（分钟）
+     */
+    private long payTimeout = 15;
+
+    /**
+     * 超时延迟队列每次最多取出的到期订单数量
+     */
+    private int timeoutQueueBatchSize = 100;
+
+    /**
+     * 定时任务批量修改订单状态时，每批处理的订单数量
+     */
+    private int taskBatchSize = 500;
+
+}
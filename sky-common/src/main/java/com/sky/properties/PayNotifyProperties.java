@@ -0,0 +1,37 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.pay-notify")
+@Data
+public class PayNotifyProperties {
+
+    /**
+     * 处理支付通知的线程数
+     */
+    private int workers = 4;
+
+    /**
+     * 队列为空时，线程再次拉取通知前的等待时间（毫秒）
+     */
+    private long idleMillis = 200;
+
+    /**
+     * 最大处理次数，超过后转入死信队列
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * 首次重试的等待时间（毫秒），之后每次重试翻倍
+     */
+    private long retryBackoffMillis = 1000;
+
+    /**
+     * 处理一条通知的租约时间（毫秒），超过该时间仍未处理完的通知由任一节点放回队列
+     */
+    private long leaseMillis = 60000;
+
+}
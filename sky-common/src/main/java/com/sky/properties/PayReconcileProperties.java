@@ -0,0 +1,37 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.pay-reconcile")
+@Data
+public class PayReconcileProperties {
+
+    /**
+     * 是否开启支付对账
+     */
+    private boolean enabled = false;
+
+    /**
+     * 下单超过该时间（分钟）仍未收到支付通知的订单才需要对账
+     */
+    private long minAgeMinutes = 2;
+
+    /**
+     * 每批查询的订单数量
+     */
+    private int batchSize = 200;
+
+    /**
+     * 同时查询微信支付的线程数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 每秒最多查询微信支付的次数
+     */
+    private double permitsPerSecond = 10;
+
+}
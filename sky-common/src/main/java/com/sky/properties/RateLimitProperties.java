@@ -0,0 +1,47 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "sky.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地令牌桶最多保留的数量，超过后淘汰最久未访问的
+     */
+    private long localBucketSize = 100000;
+
+    /**
+     * 各接口的限流规则，每个用户在每个接口上各有一个令牌桶
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        /**
+         * 接口路径，与Controller中的映射路径一致，如 /user/order/reminder/{id}
+         */
+        private String path;
+
+        /**
+         * 令牌桶容量，即允许的突发请求数
+         */
+        private int capacity;
+
+        /**
+         * 每秒补充的令牌数
+         */
+        private double refillPerSecond;
+    }
+}
@@ -19,5 +19,7 @@ public class WeChatProperties {
     private String weChatPayCertFilePath; //平台证书
     private String notifyUrl; //支付成功的回调地址
     private String refundNotifyUrl; //退款成功的回调地址
+    private String apiBaseUrl; //微信支付接口地址，为空时使用正式地址，可配置为本地模拟服务
+
 
 }
@@ -0,0 +1,82 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "sky.websocket")
+@Data
+public class WebSocketProperties {
+
+    /**
+     * 是否要求连接携带有效的连接凭证（ticket参数）
+     * 关闭时未携带凭证的旧版管理端仍可连接并接收来单提醒，所有管理端升级后应开启
+     */
+    private boolean authRequired = false;
+
+    /**
+     * 连接凭证的有效期（秒），凭证只能使用一次
+     */
+    private long ticketTtlSeconds = 30;
+
+    /**
+     * 接收来单提醒和客户催单的员工角色，只有这些角色的会话加入商家分组
+     */
+    private List<String> orderAlertRoles = new ArrayList<>(Arrays.asList("manager", "staff"));
+
+    /**
+     * 每个会话待发送消息队列的容量，队列已满的会话视为慢客户端并被移除
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 发起异步发送的线程数
+     */
+    private int sendThreads = 4;
+
+    /**
+     * 单条消息的发送超时时间（毫秒），超时的会话视为慢客户端并被移除
+     */
+    private long sendTimeoutMillis = 5000;
+
+    /**
+     * 是否通过Redis发布订阅在集群各节点间广播消息
+     */
+    private boolean clusterEnabled = true;
+
+    /**
+     * 是否合并发送，开启后同一会话在时间窗口内的消息合并为一个JSON数组发送
+     */
+    private boolean batchEnabled = false;
+
+    /**
+     * 合并发送的时间窗口（毫秒）
+     */
+    private long batchWindowMillis = 200;
+
+    /**
+     * 订单事件日志保留的最大事件数（近似值）
+     */
+    private long outboxMaxLength = 10000;
+
+    /**
+     * 订单事件日志写入失败后的最大重试次数
+     */
+    private int outboxAppendAttempts = 3;
+
+    /**
+     * 订单事件日志首次重试前的等待时间（毫秒），之后每次重试翻倍
+     */
+    private long outboxRetryBackoffMillis = 100;
+
+    /**
+     * 断线重连时最多补发的事件数
+     */
+    private int replayLimit = 200;
+
+}
@@ -0,0 +1,70 @@
+package com.sky.utils;
+
+import com.sky.properties.WeChatProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 微信支付回调通知解密工具类，使用APIv3密钥进行AES-GCM解密
+ * 密钥只构造一次，Cipher用完后放回池中复用，可在多个线程中同时使用
+ * 不按线程缓存Cipher：以虚拟线程处理请求时每个请求都是新线程，按线程缓存等于每次都重新创建
+ */
+@Component
+public class WeChatPayDecryptor {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int TAG_LENGTH_BIT = 128;
+    // 池中最多保留的Cipher数量，超过的用完后直接丢弃
+    private static final int POOL_SIZE = 64;
+
+    @Autowired
+    private WeChatProperties weChatProperties;
+
+    private volatile SecretKeySpec keySpec;
+
+    // Cipher不是线程安全的，同一时刻只由一个线程使用
+    private final BlockingQueue<Cipher> ciphers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * 解密
+     *
+     * @param associatedData 附加数据
+     * @param nonce          随机串
+     * @param ciphertext     Base64编码的密文
+     * @return
+     * @throws GeneralSecurityException
+     */
+    public String decryptToString(byte[] associatedData, byte[] nonce, String ciphertext) throws GeneralSecurityException {
+        Cipher cipher = ciphers.poll();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+        }
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, getKeySpec(), new GCMParameterSpec(TAG_LENGTH_BIT, nonce));
+            if (associatedData != null) {
+                cipher.updateAAD(associatedData);
+            }
+            return new String(cipher.doFinal(Base64.getDecoder().decode(ciphertext)), StandardCharsets.UTF_8);
+        } finally {
+            // 每次使用前都会重新init，解密失败的Cipher也可以放回
+            ciphers.offer(cipher);
+        }
+    }
+
+    private SecretKeySpec getKeySpec() {
+        SecretKeySpec spec = keySpec;
+        if (spec == null) {
+            spec = new SecretKeySpec(weChatProperties.getApiV3Key().getBytes(StandardCharsets.UTF_8), "AES");
+            keySpec = spec;
+        }
+        return spec;
+    }
+}
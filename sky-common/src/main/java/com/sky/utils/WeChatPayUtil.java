@@ -5,6 +5,7 @@ import com.alibaba.fastjson.JSONObject;
 import com.sky.properties.WeChatProperties;
 import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
 import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -17,9 +18,10 @@ import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.PrivateKey;
 import java.security.Signature;
@@ -33,6 +35,7 @@ import java.util.List;
  * 微信支付工具类
  */
 @Component
+@Slf4j
 public class WeChatPayUtil {
 
     //微信支付下单接口地址
@@ -41,34 +44,123 @@ public class WeChatPayUtil {
     //申请退款接口地址
     public static final String REFUNDS = "https://api.mch.weixin.qq.com/v3/refund/domestic/refunds";
 
+    //商户订单号查询订单接口地址
+    public static final String QUERY_BY_OUT_TRADE_NO = "https://api.mch.weixin.qq.com/v3/pay/transactions/out-trade-no/%s?mchid=%s";
+
+    //微信支付接口的正式地址
+    private static final String DEFAULT_API_BASE_URL = "https://api.mch.weixin.qq.com";
+
+    // 检查密钥文件是否变化的最小间隔（毫秒）
+    private static final long RELOAD_CHECK_INTERVAL = 60 * 1000;
+
+    // 连接池的最大连接数
+    private static final int MAX_CONNECTIONS = 50;
+
     @Autowired
     private WeChatProperties weChatProperties;
 
+    //当前使用的密钥及客户端
+    private volatile Credentials credentials;
+
+    //上一次更换前的客户端，留给仍在进行中的请求使用，下次更换时关闭
+    private CloseableHttpClient retiredClient;
+
+    private volatile long lastCheckTime;
+
     /**
      * 获取调用微信接口的客户端工具对象
      *
      * @return
      */
-    private CloseableHttpClient getClient() {
-        PrivateKey merchantPrivateKey = null;
+    private CloseableHttpClient getClient() throws IOException {
+        return getCredentials().httpClient;
+    }
+
+    /**
+     * 获取商户私钥及签名客户端
+     * 首次使用时加载，之后复用；密钥或证书文件被替换时重新加载，无需重启即可更换密钥
+     * 重新加载失败时（如文件尚未写完）继续使用上一次加载成功的密钥，下次检查时再重试
+     *
+     * @return
+     */
+    private Credentials getCredentials() throws IOException {
+        Credentials current = credentials;
+        long now = System.currentTimeMillis();
+        if (current != null && now - lastCheckTime < RELOAD_CHECK_INTERVAL) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = credentials;
+            if (current != null && now - lastCheckTime < RELOAD_CHECK_INTERVAL) {
+                return current;
+            }
+            lastCheckTime = now;
+
+            File privateKeyFile = new File(weChatProperties.getPrivateKeyFilePath());
+            File certFile = new File(weChatProperties.getWeChatPayCertFilePath());
+            if (current != null && current.privateKeyModified == privateKeyFile.lastModified()
+                    && current.certModified == certFile.lastModified()) {
+                return current;
+            }
+
+            if (current == null) {
+                credentials = loadCredentials(privateKeyFile, certFile);
+                return credentials;
+            }
+            try {
+                credentials = loadCredentials(privateKeyFile, certFile);
+            } catch (IOException | RuntimeException e) {
+                log.error("重新加载微信支付商户私钥或平台证书失败，继续使用原密钥，{}毫秒后重试", RELOAD_CHECK_INTERVAL, e);
+                return current;
+            }
+            closeQuietly(retiredClient);
+            retiredClient = current.httpClient;
+            return credentials;
+        }
+    }
+
+    private Credentials loadCredentials(File privateKeyFile, File certFile) throws IOException {
+        PrivateKey merchantPrivateKey;
+        X509Certificate x509Certificate;
+        //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
+        try (FileInputStream privateKeyInput = new FileInputStream(privateKeyFile)) {
+            merchantPrivateKey = PemUtil.loadPrivateKey(privateKeyInput);
+        }
+        //加载平台证书文件
+        try (FileInputStream certInput = new FileInputStream(certFile)) {
+            x509Certificate = PemUtil.loadCertificate(certInput);
+        }
+        //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
+        List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
+
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签，连接由连接池复用
+        CloseableHttpClient httpClient = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
+                .withWechatPay(wechatPayCertificates)
+                .setMaxConnTotal(MAX_CONNECTIONS)
+                .setMaxConnPerRoute(MAX_CONNECTIONS)
+                .build();
+
+        return new Credentials(merchantPrivateKey, httpClient, privateKeyFile.lastModified(), certFile.lastModified());
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        closeQuietly(retiredClient);
+        if (credentials != null) {
+            closeQuietly(credentials.httpClient);
+        }
+    }
+
+    private void closeQuietly(CloseableHttpClient httpClient) {
+        if (httpClient == null) {
+            return;
+        }
         try {
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
-            //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
-
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
-
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-            return null;
+            httpClient.close();
+        } catch (IOException e) {
+            // 客户端即将丢弃，关闭失败无需处理
         }
     }
 
@@ -82,7 +174,7 @@ public class WeChatPayUtil {
     private String post(String url, String body) throws Exception {
         CloseableHttpClient httpClient = getClient();
 
-        HttpPost httpPost = new HttpPost(url);
+        HttpPost httpPost = new HttpPost(resolve(url));
         httpPost.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString());
         httpPost.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpPost.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
@@ -93,7 +185,7 @@ public class WeChatPayUtil {
             String bodyAsString = EntityUtils.toString(response.getEntity());
             return bodyAsString;
         } finally {
-            httpClient.close();
+            // 客户端复用，只关闭响应以归还连接
             response.close();
         }
     }
@@ -107,7 +199,7 @@ public class WeChatPayUtil {
     private String get(String url) throws Exception {
         CloseableHttpClient httpClient = getClient();
 
-        HttpGet httpGet = new HttpGet(url);
+        HttpGet httpGet = new HttpGet(resolve(url));
         httpGet.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
@@ -117,11 +209,25 @@ public class WeChatPayUtil {
             String bodyAsString = EntityUtils.toString(response.getEntity());
             return bodyAsString;
         } finally {
-            httpClient.close();
+            // 客户端复用，只关闭响应以归还连接
             response.close();
         }
     }
 
+    /**
+     * 配置了接口地址时，将正式地址替换为配置的地址
+     *
+     * @param url
+     * @return
+     */
+    private String resolve(String url) {
+        String apiBaseUrl = weChatProperties.getApiBaseUrl();
+        if (apiBaseUrl == null || apiBaseUrl.isEmpty() || !url.startsWith(DEFAULT_API_BASE_URL)) {
+            return url;
+        }
+        return apiBaseUrl + url.substring(DEFAULT_API_BASE_URL.length());
+    }
+
     /**
      * jsapi下单
      *
@@ -188,7 +294,7 @@ public class WeChatPayUtil {
             byte[] message = signMessage.getBytes();
 
             Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            signature.initSign(getCredentials().privateKey);
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
@@ -232,4 +338,32 @@ public class WeChatPayUtil {
         //调用申请退款接口
         return post(REFUNDS, body);
     }
+
+    /**
+     * 根据商户订单号查询订单
+     *
+     * @param outTradeNo 商户订单号
+     * @return 订单信息，trade_state为SUCCESS表示支付成功
+     */
+    public JSONObject queryByOutTradeNo(String outTradeNo) throws Exception {
+        String url = String.format(QUERY_BY_OUT_TRADE_NO, outTradeNo, weChatProperties.getMchid());
+        return JSON.parseObject(get(url));
+    }
+
+    /**
+     * 商户私钥及使用该私钥签名的客户端
+     */
+    private static class Credentials {
+        private final PrivateKey privateKey;
+        private final CloseableHttpClient httpClient;
+        private final long privateKeyModified;
+        private final long certModified;
+
+        private Credentials(PrivateKey privateKey, CloseableHttpClient httpClient, long privateKeyModified, long certModified) {
+            this.privateKey = privateKey;
+            this.httpClient = httpClient;
+            this.privateKeyModified = privateKeyModified;
+            this.certModified = certModified;
+        }
+    }
 }
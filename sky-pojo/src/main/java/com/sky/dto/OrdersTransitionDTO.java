@@ -0,0 +1,29 @@
+package com.sky.dto;
+
+import com.sky.entity.Orders;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrdersTransitionDTO implements Serializable {
+
+    //订单id及需要一并修改的字段
+    private Orders orders;
+
+    //订单当前应处于的原状态
+    private Integer fromStatus;
+
+    //流转后的状态
+    private Integer toStatus;
+
+    //流转后的支付状态，为null时不修改
+    private Integer payStatus;
+
+}
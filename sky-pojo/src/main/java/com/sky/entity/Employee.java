@@ -33,6 +33,9 @@ public class Employee implements Serializable {
 
     private Integer status;
 
+    //员工角色，决定WebSocket连接加入的分组
+    private String role;
+
     // @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createTime;
 
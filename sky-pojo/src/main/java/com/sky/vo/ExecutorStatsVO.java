@@ -0,0 +1,38 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 异步线程池运行统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutorStatsVO implements Serializable {
+    //线程池名称
+    private String name;
+
+    //当前线程数
+    private Integer poolSize;
+
+    //正在执行任务的线程数
+    private Integer activeCount;
+
+    //等待队列中的任务数
+    private Integer queueSize;
+
+    //等待队列的剩余容量
+    private Integer queueRemainingCapacity;
+
+    //已完成的任务数
+    private Long completedTaskCount;
+
+    //线程池已满、由提交任务的线程自己执行的次数
+    private Long rejectedCount;
+}
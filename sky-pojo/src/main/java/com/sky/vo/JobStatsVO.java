@@ -0,0 +1,38 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 定时任务运行统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatsVO implements Serializable {
+    //任务名称
+    private String name;
+
+    //最近一次执行的节点
+    private String node;
+
+    //最近一次执行的开始时间
+    private String lastRunTime;
+
+    //最近一次执行的耗时（毫秒）
+    private Long lastDuration;
+
+    //最近一次执行影响的行数
+    private Long rowsAffected;
+
+    //最近一次执行的结果 SUCCESS成功 FAILED失败
+    private String lastResult;
+
+    //累计执行次数
+    private Long runs;
+}
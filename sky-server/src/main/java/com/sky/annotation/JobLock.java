@@ -0,0 +1,29 @@
+package com.sky.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * 自定义的注解，标识的定时任务在集群中同一时刻只由一个节点执行
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JobLock {
+    /**
+     * 任务名称，同名任务共享同一把锁
+     */
+    String value();
+
+    /**
+     * 锁的最长持有时间（秒），节点宕机时锁到期后自动释放
+     */
+    long leaseSeconds() default 300;
+
+    /**
+     * 锁的最短持有时间（秒），防止各节点时钟偏差导致同一周期的任务被重复执行
+     */
+    long minHoldSeconds() default 10;
+}
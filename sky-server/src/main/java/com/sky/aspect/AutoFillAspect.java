@@ -11,11 +11,15 @@ import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 切面，实现公共字段的自动填充
@@ -25,6 +29,9 @@ import java.time.LocalDateTime;
 @Slf4j
 public class AutoFillAspect {
 
+    // 各实体类公共字段的赋值方法，每个类只查找一次
+    private final Map<Class<?>, EntityAccessors> accessorsCache = new ConcurrentHashMap<>();
+
     /**
      * 切入点
      */
@@ -37,55 +44,111 @@ public class AutoFillAspect {
      * 前置通知，在通知中进行公共字段的填充
      *
      * @param jointPoint
+     * @param autoFill
      */
-    @Before("pointCutMethod()")
-    public void setGlobalField(JoinPoint jointPoint) {
-        log.info("开始进行公共字段的自动填充");
-        // 获取当前方法的数据库类型
-        MethodSignature signature = (MethodSignature) jointPoint.getSignature();// 获取方法签名对象
-        AutoFill autoFill = signature.getMethod().getAnnotation(AutoFill.class);// 获取方法上的注解对象
-        OperationType operationType = autoFill.value();// 获取数据库操作类型
+    @Before("pointCutMethod() && @annotation(autoFill)")
+    public void setGlobalField(JoinPoint jointPoint, AutoFill autoFill) {
+        // 获取数据库操作类型
+        OperationType operationType = autoFill.value();
 
         // 判获取的实体对象是否合法
         Object[] args = jointPoint.getArgs();
-        if (args == null || args.length == 0) {
+        if (args == null || args.length == 0 || args[0] == null) {
             return;
         }
 
         // 为实体对象的公共字段进行赋值。
-        // 现规定，Mapper层方法的第一位参数是实体对象
-        Object entity = args[0];
+        // 现规定，Mapper层方法的第一位参数是实体对象，或实体对象的集合、数组（批量插入）
+        Object arg = args[0];
 
-        // 准备赋值的数据
+        // 准备赋值的数据，批量操作中所有实体使用同一时间
         LocalDateTime now = LocalDateTime.now();
         Long currentId = BaseContext.getCurrentId();
 
-        // 根据不同的操作类型，通过反射机制为对应的属性进行赋值
+        if (arg instanceof Collection) {
+            log.debug("开始进行公共字段的批量自动填充：{}条", ((Collection<?>) arg).size());
+            for (Object entity : (Collection<?>) arg) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else if (arg instanceof Object[]) {
+            log.debug("开始进行公共字段的批量自动填充：{}条", ((Object[]) arg).length);
+            for (Object entity : (Object[]) arg) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else {
+            log.debug("开始进行公共字段的自动填充：{}", arg.getClass().getSimpleName());
+            fill(arg, operationType, now, currentId);
+        }
+    }
+
+    /**
+     * 为单个实体对象的公共字段赋值
+     *
+     * @param entity
+     * @param operationType
+     * @param now
+     * @param currentId
+     */
+    private void fill(Object entity, OperationType operationType, LocalDateTime now, Long currentId) {
+        if (entity == null) {
+            return;
+        }
+
+        // 根据不同的操作类型，通过预先查找的方法句柄为对应的属性进行赋值
         // 若是插入操作，则设置创建时间、更新时间、创建用户、更新用户
         // 若是更新操作，则只设置更新时间和更新用户
-        if (operationType == OperationType.INSERT) {
-            try {
-                Method setCreateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
-                Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-                Method setCreateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
-                Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
-
-                setCreateTime.invoke(entity, now);
-                setUpdateTime.invoke(entity, now);
-                setCreateUser.invoke(entity, currentId);
-                setUpdateUser.invoke(entity, currentId);
-            } catch (Exception e) {
-                throw new CommonFieldPopulationException(MessageConstant.Common_Field_Population);
+        EntityAccessors accessors = accessorsCache.computeIfAbsent(entity.getClass(), EntityAccessors::new);
+        if (accessors.empty) {
+            // 实体类没有任何公共字段，说明注解使用错误
+            throw new CommonFieldPopulationException(MessageConstant.Common_Field_Population);
+        }
+        try {
+            if (operationType == OperationType.INSERT) {
+                accessors.setCreateTime.invokeExact(entity, (Object) now);
+                accessors.setUpdateTime.invokeExact(entity, (Object) now);
+                accessors.setCreateUser.invokeExact(entity, (Object) currentId);
+                accessors.setUpdateUser.invokeExact(entity, (Object) currentId);
+            } else if (operationType == OperationType.UPDATE) {
+                accessors.setUpdateTime.invokeExact(entity, (Object) now);
+                accessors.setUpdateUser.invokeExact(entity, (Object) currentId);
             }
-        } else if (operationType == OperationType.UPDATE) {
-            try {
-                Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-                Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+        } catch (Throwable e) {
+            throw new CommonFieldPopulationException(MessageConstant.Common_Field_Population);
+        }
+    }
+
+    /**
+     * 实体类公共字段的赋值方法，统一适配为 (Object, Object) -> void 以便直接调用
+     * 实体类只有部分公共字段时（如购物车只有创建时间），缺少的字段不赋值
+     */
+    private static class EntityAccessors {
+        private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+        private static final MethodType GENERIC_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+        // 实体类没有对应字段时使用的空操作
+        private static final MethodHandle NO_OP = MethodHandles.dropArguments(
+                MethodHandles.constant(Object.class, null).asType(MethodType.methodType(void.class)), 0, Object.class, Object.class);
+
+        private final MethodHandle setCreateTime;
+        private final MethodHandle setUpdateTime;
+        private final MethodHandle setCreateUser;
+        private final MethodHandle setUpdateUser;
+        // 是否一个公共字段都没有
+        private final boolean empty;
 
-                setUpdateTime.invoke(entity, now);
-                setUpdateUser.invoke(entity, currentId);
-            } catch (Exception e) {
-                throw new RuntimeException(MessageConstant.Common_Field_Population);
+        private EntityAccessors(Class<?> entityClass) {
+            setCreateTime = find(entityClass, AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+            setUpdateTime = find(entityClass, AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+            setCreateUser = find(entityClass, AutoFillConstant.SET_CREATE_USER, Long.class);
+            setUpdateUser = find(entityClass, AutoFillConstant.SET_UPDATE_USER, Long.class);
+            empty = setCreateTime == NO_OP && setUpdateTime == NO_OP && setCreateUser == NO_OP && setUpdateUser == NO_OP;
+        }
+
+        private static MethodHandle find(Class<?> entityClass, String name, Class<?> type) {
+            try {
+                return LOOKUP.findVirtual(entityClass, name, MethodType.methodType(void.class, type)).asType(GENERIC_SETTER);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return NO_OP;
             }
         }
     }
@@ -0,0 +1,61 @@
+package com.sky.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 切面，统计调用微信支付、百度地图等外部接口的耗时和失败次数
+ */
+@Aspect
+@Component
+public class ExternalCallMetricsAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 服务.方法 -> 耗时统计，每个方法只在首次调用时注册
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> errorTimers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.sky.utils.WeChatPayUtil.pay(..))"
+            + " || execution(public * com.sky.utils.WeChatPayUtil.refund(..))"
+            + " || execution(public * com.sky.utils.WeChatPayUtil.queryByOutTradeNo(..))")
+    public Object timeWeChatPay(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "wechat");
+    }
+
+    @Around("execution(public * com.sky.utils.BaiduGeocodingUtil.get*(..))")
+    public Object timeBaidu(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "baidu");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String service) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String method = joinPoint.getSignature().getName();
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(timer(successTimers, service, method, "success"));
+            return result;
+        } catch (Throwable e) {
+            sample.stop(timer(errorTimers, service, method, "error"));
+            throw e;
+        }
+    }
+
+    private Timer timer(Map<String, Timer> timers, String service, String method, String outcome) {
+        return timers.computeIfAbsent(service + "." + method, key -> Timer.builder("sky.external.calls")
+                .description("外部接口调用耗时")
+                .tag("service", service)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
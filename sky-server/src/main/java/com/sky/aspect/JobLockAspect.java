@@ -0,0 +1,107 @@
+package com.sky.aspect;
+
+import com.sky.annotation.JobLock;
+import com.sky.service.JobService;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 切面，基于Redis租约实现定时任务的集群互斥执行
+ */
+@Aspect
+@Component
+@Slf4j
+public class JobLockAspect {
+    private static final String KEY_PREFIX = "JOB_LOCK::";
+
+    /**
+     * 释放锁：仅持有者可以释放；若未达到最短持有时间，则改为在剩余时间后过期
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "if tonumber(ARGV[2]) > 0 then return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+                    "else return redis.call('del', KEYS[1]) end " +
+                    "else return 0 end", Long.class);
+
+    /**
+     * 当前节点标识，格式为 进程号@主机名
+     */
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * 环绕通知，获取到锁的节点才执行任务，并记录任务运行统计
+     *
+     * @param joinPoint
+     * @param jobLock
+     * @return
+     * @throws Throwable
+     */
+    @Around("@annotation(jobLock)")
+    public Object runExclusively(ProceedingJoinPoint joinPoint, JobLock jobLock) throws Throwable {
+        String key = KEY_PREFIX + jobLock.value();
+        String token = NODE + ":" + UUID.randomUUID();
+
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(key, token, jobLock.leaseSeconds(), TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("任务{}正在其他节点执行，本节点跳过", jobLock.value());
+            return skippedResult(joinPoint);
+        }
+
+        LocalDateTime startTime = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        boolean success = false;
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            long duration = System.currentTimeMillis() - start;
+            long rows = result instanceof Number ? ((Number) result).longValue() : 0L;
+            try {
+                jobService.recordRun(jobLock.value(), NODE, startTime, duration, rows, success);
+            } catch (Exception e) {
+                log.warn("记录任务{}运行统计失败：{}", jobLock.value(), e.getMessage());
+            }
+
+            long remainHold = TimeUnit.SECONDS.toMillis(jobLock.minHoldSeconds()) - duration;
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key),
+                    token, String.valueOf(Math.max(remainHold, 0L)));
+        }
+    }
+
+    /**
+     * 未获取到锁时的返回值，任务方法返回基本类型时返回其默认值（如0），否则代理无法将null转换为基本类型
+     *
+     * @param joinPoint
+     * @return
+     */
+    private Object skippedResult(ProceedingJoinPoint joinPoint) {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        // 长度为1的基本类型数组中的元素即为该类型的默认值
+        return Array.get(Array.newInstance(returnType, 1), 0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.sky.config;
+
+import com.sky.context.ContextTaskDecorator;
+import com.sky.properties.AsyncProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 配置类，创建异步执行副作用（订单提醒推送、缓存清理）的线程池
+ * 线程池的线程数和队列容量都有上限，队列已满时由提交任务的线程自己执行，既不丢任务也能对调用方形成反压
+ * 任务携带提交时的请求上下文，在线程池中也能通过BaseContext获取当前用户id
+ */
+@Configuration
+@Slf4j
+public class AsyncConfiguration {
+
+    @Bean
+    public ThreadPoolTaskExecutor notifyExecutor(AsyncProperties asyncProperties) {
+        log.info("开始创建订单提醒推送线程池：{}", asyncProperties.getNotify());
+        return buildExecutor("async-notify-", asyncProperties.getNotify());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cacheExecutor(AsyncProperties asyncProperties) {
+        log.info("开始创建缓存清理线程池：{}", asyncProperties.getCache());
+        return buildExecutor("async-cache-", asyncProperties.getCache());
+    }
+
+    private ThreadPoolTaskExecutor buildExecutor(String threadNamePrefix, AsyncProperties.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(pool.getMaxSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new CountingCallerRunsPolicy(threadNamePrefix));
+        executor.setTaskDecorator(new ContextTaskDecorator());
+        // 关闭应用时执行完队列中剩余的任务
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * 线程池已满时由提交任务的线程自己执行，并记录发生的次数
+     */
+    public static class CountingCallerRunsPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
+        private final String name;
+        private final AtomicLong rejected = new AtomicLong();
+
+        public CountingCallerRunsPolicy(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (rejected.incrementAndGet() % 100 == 1) {
+                log.warn("线程池{}已满，由提交任务的线程执行，累计{}次", name, rejected.get());
+            }
+            super.rejectedExecution(runnable, executor);
+        }
+
+        public long getRejectedCount() {
+            return rejected.get();
+        }
+    }
+}
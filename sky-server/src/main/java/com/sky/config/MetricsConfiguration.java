@@ -0,0 +1,110 @@
+package com.sky.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.sky.websocket.OrderEventOutbox;
+import com.sky.websocket.WebSocketSessionManager;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * 配置类，注册Druid连接池、WebSocket推送、订单事件日志、异步线程池的监控指标
+ * 接口耗时（http.server.requests）和线程池的线程数、队列长度（executor.*）由Spring Boot自动统计
+ */
+@Configuration
+@Slf4j
+public class MetricsConfiguration {
+
+    /**
+     * Druid连接池状态
+     *
+     * @param dataSource
+     * @return
+     */
+    @Bean
+    public MeterBinder druidMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof DruidDataSource)) {
+                log.warn("数据源不是Druid连接池，跳过连接池监控：{}", dataSource.getClass().getName());
+                return;
+            }
+            DruidDataSource druid = (DruidDataSource) dataSource;
+            Gauge.builder("sky.druid.connections.active", druid, DruidDataSource::getActiveCount)
+                    .description("正在使用的连接数").register(registry);
+            Gauge.builder("sky.druid.connections.idle", druid, DruidDataSource::getPoolingCount)
+                    .description("空闲的连接数").register(registry);
+            Gauge.builder("sky.druid.connections.max", druid, DruidDataSource::getMaxActive)
+                    .description("最大连接数").register(registry);
+            Gauge.builder("sky.druid.connections.pending", druid, DruidDataSource::getWaitThreadCount)
+                    .description("正在等待获取连接的线程数").register(registry);
+            FunctionCounter.builder("sky.druid.connections.wait", druid, DruidDataSource::getNotEmptyWaitCount)
+                    .description("获取连接时需要等待的累计次数").register(registry);
+        };
+    }
+
+    /**
+     * WebSocket会话数和推送统计
+     *
+     * @param webSocketSessionManager
+     * @return
+     */
+    @Bean
+    public MeterBinder webSocketMetrics(WebSocketSessionManager webSocketSessionManager) {
+        return registry -> {
+            for (String name : Arrays.asList("sessions", "groups")) {
+                Gauge.builder("sky.websocket." + name, webSocketSessionManager, manager -> manager.getMetrics().get(name))
+                        .register(registry);
+            }
+            for (String name : Arrays.asList("sent", "failed", "dropped", "evicted", "batches")) {
+                FunctionCounter.builder("sky.websocket.messages", webSocketSessionManager, manager -> manager.getMetrics().get(name))
+                        .tag("result", name)
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * 订单事件日志写入失败、重试成功和最终放弃的次数
+     *
+     * @param orderEventOutbox
+     * @return
+     */
+    @Bean
+    public MeterBinder orderEventOutboxMetrics(OrderEventOutbox orderEventOutbox) {
+        return registry -> {
+            for (String name : Arrays.asList("failed", "recovered", "lost")) {
+                FunctionCounter.builder("sky.websocket.outbox.appends", orderEventOutbox, outbox -> outbox.getMetrics().get(name))
+                        .tag("result", name)
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * 异步线程池已满、由提交任务的线程自己执行的次数
+     *
+     * @param executors
+     * @return
+     */
+    @Bean
+    public MeterBinder executorRejectionMetrics(Map<String, ThreadPoolTaskExecutor> executors) {
+        return registry -> executors.forEach((name, executor) -> {
+            RejectedExecutionHandler handler = executor.getThreadPoolExecutor().getRejectedExecutionHandler();
+            if (handler instanceof AsyncConfiguration.CountingCallerRunsPolicy) {
+                FunctionCounter.builder("sky.executor.caller.runs", (AsyncConfiguration.CountingCallerRunsPolicy) handler,
+                                AsyncConfiguration.CountingCallerRunsPolicy::getRejectedCount)
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package com.sky.config;
+
+import com.sky.properties.LoginProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * 配置类，用于创建密码加密对象
+ */
+@Configuration
+@Slf4j
+public class PasswordEncoderConfiguration {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(LoginProperties loginProperties) {
+        log.info("开始创建密码加密对象，强度：{}", loginProperties.getBcryptStrength());
+        return new BCryptPasswordEncoder(loginProperties.getBcryptStrength());
+    }
+}
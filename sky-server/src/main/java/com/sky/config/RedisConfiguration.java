@@ -1,10 +1,15 @@
 package com.sky.config;
 
+import com.sky.properties.WebSocketProperties;
+import com.sky.service.impl.TokenRevocationServiceImpl;
+import com.sky.websocket.WebSocketClusterBroadcaster;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -20,4 +25,29 @@ public class RedisConfiguration {
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         return redisTemplate;
     }
+
+    /**
+     * 所有频道共用一个订阅容器，只占用一个订阅连接和一个订阅线程
+     * 令牌注销频道：其他节点注销令牌后立即更新本节点的注销记录
+     * WebSocket集群广播频道：将其他节点发布的消息推送给本节点的会话，关闭集群广播时不订阅
+     *
+     * @param redisConnectionFactory
+     * @param tokenRevocationService
+     * @param webSocketClusterBroadcaster
+     * @param webSocketProperties
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       TokenRevocationServiceImpl tokenRevocationService,
+                                                                       WebSocketClusterBroadcaster webSocketClusterBroadcaster,
+                                                                       WebSocketProperties webSocketProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(tokenRevocationService, new ChannelTopic(TokenRevocationServiceImpl.CHANNEL));
+        if (webSocketProperties.isClusterEnabled()) {
+            container.addMessageListener(webSocketClusterBroadcaster, new ChannelTopic(WebSocketClusterBroadcaster.CHANNEL));
+        }
+        return container;
+    }
 }
@@ -0,0 +1,45 @@
+package com.sky.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 配置类，开启后Tomcat为每个请求创建一个虚拟线程，而不是使用固定大小的线程池
+ * 下单、微信登录、支付等接口的大部分时间在等待远程HTTP调用，使用虚拟线程时等待期间不占用平台线程
+ * 每个请求独占一个虚拟线程直至结束，因此BaseContext中的当前用户id在请求内照常可用
+ * 虚拟线程用完即弃，按线程缓存的对象会在每个请求中重新创建，因此解密用的Cipher和读取缓冲区改为对象池复用
+ * 需要Java 21及以上版本，使用 -P java21 构建；压测见 VirtualThreadLoadTest
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sky.execution", name = "virtual-threads", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutorCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        log.info("Tomcat使用虚拟线程处理请求");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，以便项目仍可在Java 8下编译
+     *
+     * @return
+     */
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("当前Java版本不支持虚拟线程，需要Java 21及以上版本", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+}
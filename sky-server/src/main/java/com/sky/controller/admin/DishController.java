@@ -5,13 +5,13 @@ import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.CacheService;
 import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,6 +27,8 @@ import java.util.List;
 public class DishController {
     @Autowired
     private DishService dishService;
+    @Autowired
+    private CacheService cacheService;
     /**
      * 新增菜品
      *
@@ -35,10 +37,10 @@ public class DishController {
      */
     @PostMapping
     @ApiOperation("新增菜品")
-    @CacheEvict(value = "DishCache", allEntries = true)
     public Result save(@RequestBody DishDTO dishDTO) {
         log.info("新增菜品：{}", dishDTO);
         dishService.saveWithFlavor(dishDTO);
+        cacheService.evictAll("DishCache");
         return Result.success();
     }
 
@@ -64,10 +66,10 @@ public class DishController {
      */
     @DeleteMapping
     @ApiOperation("批量删除菜品")
-    @CacheEvict(value = "DishCache", allEntries = true)
     public Result delete(@RequestParam List<Long> ids) {
         log.info("批量删除菜品：{}", ids);
         dishService.deleteBatch(ids);
+        cacheService.evictAll("DishCache");
         return Result.success();
     }
 
@@ -93,10 +95,10 @@ public class DishController {
      */
     @PutMapping
     @ApiOperation("修改菜品")
-    @CacheEvict(value = "DishCache", allEntries = true)
     public Result update(@RequestBody DishDTO dishDTO) {
         log.info("修改菜品：{}", dishDTO);
         dishService.updateWithFlavor(dishDTO);
+        cacheService.evictAll("DishCache");
         return Result.success();
     }
 
@@ -108,10 +110,10 @@ public class DishController {
      */
     @PostMapping("/status/{status}")
     @ApiOperation("菜品起售、停售")
-    @CacheEvict(value = "DishCache", allEntries = true)
     public Result startOrStop(@PathVariable Integer status, Long id) {
         log.info("对菜品Id为{}起售或停售：{}", id, status);
         dishService.startOrStop(status, id);
+        cacheService.evictAll("DishCache");
         return Result.success();
     }
 
@@ -9,8 +9,10 @@ import com.sky.properties.JwtProperties;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.EmployeeService;
+import com.sky.service.TokenRevocationService;
 import com.sky.utils.JwtUtil;
 import com.sky.vo.EmployeeLoginVO;
+import io.jsonwebtoken.Claims;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +20,7 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -34,19 +37,23 @@ public class EmployeeController {
     private EmployeeService employeeService;
     @Autowired
     private JwtProperties jwtProperties;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     /**
      * 登录
      *
      * @param employeeLoginDTO
+     * @param request
      * @return
      */
     @PostMapping("/login")
     @ApiOperation("员工登录")
-    public Result<EmployeeLoginVO> login(@RequestBody EmployeeLoginDTO employeeLoginDTO) {
-        log.info("员工登录：{}", employeeLoginDTO);
+    public Result<EmployeeLoginVO> login(@RequestBody EmployeeLoginDTO employeeLoginDTO, HttpServletRequest request) {
+        log.info("员工登录：{}", employeeLoginDTO.getUsername());
 
-        Employee employee = employeeService.login(employeeLoginDTO);
+        // 经可信代理转发时，RemoteIpValve已将远端地址替换为X-Forwarded-For中的客户端IP
+        Employee employee = employeeService.login(employeeLoginDTO, request.getRemoteAddr());
 
         //登录成功后，生成jwt令牌
         Map<String, Object> claims = new HashMap<>();
@@ -67,13 +74,17 @@ public class EmployeeController {
     }
 
     /**
-     * 退出登录
+     * 退出登录，注销当前令牌
      *
+     * @param request
      * @return
      */
     @PostMapping("/logout")
     @ApiOperation("退出登录")
-    public Result<String> logout() {
+    public Result<String> logout(HttpServletRequest request) {
+        String token = request.getHeader(jwtProperties.getAdminTokenName());
+        Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
+        tokenRevocationService.revoke(claims);
         return Result.success();
     }
 
@@ -0,0 +1,58 @@
+package com.sky.controller.admin;
+
+import com.sky.config.AsyncConfiguration;
+import com.sky.result.Result;
+import com.sky.vo.ExecutorStatsVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步线程池
+ */
+@RestController
+@RequestMapping("/admin/executor")
+@Slf4j
+@Api(tags = "异步线程池相关接口")
+public class ExecutorController {
+    @Autowired
+    private Map<String, ThreadPoolTaskExecutor> executors;
+
+    /**
+     * 查询异步线程池运行统计
+     * @return
+     */
+    @GetMapping("/stats")
+    @ApiOperation("查询异步线程池运行统计")
+    public Result<List<ExecutorStatsVO>> stats() {
+        log.info("查询异步线程池运行统计");
+        List<ExecutorStatsVO> stats = new ArrayList<>();
+        executors.forEach((name, executor) -> {
+            ThreadPoolExecutor threadPoolExecutor = executor.getThreadPoolExecutor();
+            RejectedExecutionHandler handler = threadPoolExecutor.getRejectedExecutionHandler();
+            long rejected = handler instanceof AsyncConfiguration.CountingCallerRunsPolicy
+                    ? ((AsyncConfiguration.CountingCallerRunsPolicy) handler).getRejectedCount() : 0L;
+            stats.add(ExecutorStatsVO.builder()
+                    .name(name)
+                    .poolSize(threadPoolExecutor.getPoolSize())
+                    .activeCount(threadPoolExecutor.getActiveCount())
+                    .queueSize(threadPoolExecutor.getQueue().size())
+                    .queueRemainingCapacity(threadPoolExecutor.getQueue().remainingCapacity())
+                    .completedTaskCount(threadPoolExecutor.getCompletedTaskCount())
+                    .rejectedCount(rejected)
+                    .build());
+        });
+        return Result.success(stats);
+    }
+}
@@ -0,0 +1,40 @@
+package com.sky.controller.admin;
+
+import com.sky.context.BaseContext;
+import com.sky.entity.Employee;
+import com.sky.result.Result;
+import com.sky.service.EmployeeService;
+import com.sky.websocket.WebSocketTicketService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * WebSocket连接
+ */
+@RestController
+@RequestMapping("/admin/ws")
+@Slf4j
+@Api(tags = "WebSocket连接相关接口")
+public class WebSocketController {
+    @Autowired
+    private EmployeeService employeeService;
+    @Autowired
+    private WebSocketTicketService webSocketTicketService;
+
+    /**
+     * 获取连接凭证，凭证只能使用一次，建立连接时作为ticket参数传入：/ws/{sid}?ticket=xxx
+     * @return
+     */
+    @PostMapping("/ticket")
+    @ApiOperation("获取WebSocket连接凭证")
+    public Result<String> ticket() {
+        Employee employee = employeeService.getById(BaseContext.getCurrentId());
+        log.info("员工{}获取WebSocket连接凭证", employee.getId());
+        return Result.success(webSocketTicketService.issue(employee));
+    }
+}
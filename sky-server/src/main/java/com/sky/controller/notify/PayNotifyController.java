@@ -3,9 +3,8 @@ package com.sky.controller.notify;
 import com.alibaba.druid.support.json.JSONUtils;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
-import com.sky.properties.WeChatProperties;
-import com.sky.service.OrderService;
-import com.wechat.pay.contrib.apache.httpclient.util.AesUtil;
+import com.sky.task.PayNotifyQueue;
+import com.sky.utils.WeChatPayDecryptor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.entity.ContentType;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +12,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * 支付回调相关接口
@@ -25,12 +27,24 @@ import java.util.HashMap;
 @Slf4j
 public class PayNotifyController {
     @Autowired
-    private OrderService orderService;
+    private PayNotifyQueue payNotifyQueue;
     @Autowired
-    private WeChatProperties weChatProperties;
+    private WeChatPayDecryptor weChatPayDecryptor;
+
+    // 读取请求体的缓冲区初始大小，回调通知一般只有1KB左右
+    private static final int BUFFER_SIZE = 4 * 1024;
+    // 超过该大小的缓冲区用完后不再保留，避免个别大请求长期占用内存
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    // 池中最多保留的缓冲区数量
+    private static final int BUFFER_POOL_SIZE = 64;
+
+    // 读取请求体的缓冲区，用完后放回池中复用；不按线程缓存，以便虚拟线程模式下同样能复用
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(BUFFER_POOL_SIZE);
 
     /**
      * 支付成功回调
+     * 解密成功即说明通知来自微信支付，入队后立即响应，订单修改和来单提醒由队列异步处理
      *
      * @param request
      */
@@ -51,50 +65,59 @@ public class PayNotifyController {
         log.info("商户平台订单号：{}", outTradeNo);
         log.info("微信支付交易号：{}", transactionId);
 
-        //业务处理，修改订单状态、来单提醒
-        orderService.paySuccess(outTradeNo);
+        //通知入队，由队列异步修改订单状态、来单提醒，重复的通知直接忽略
+        payNotifyQueue.push(transactionId, outTradeNo);
 
         //给微信响应
         responseToWeixin(response);
     }
 
     /**
-     * 读取数据
+     * 读取数据，包级可见，供基准测试直接调用
      *
      * @param request
      * @return
      * @throws Exception
      */
-    private String readData(HttpServletRequest request) throws Exception {
-        BufferedReader reader = request.getReader();
-        StringBuilder result = new StringBuilder();
-        String line = null;
-        while ((line = reader.readLine()) != null) {
-            if (result.length() > 0) {
-                result.append("\n");
+    String readData(HttpServletRequest request) throws Exception {
+        byte[] buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        int length = 0;
+        try (InputStream input = request.getInputStream()) {
+            int read;
+            while ((read = input.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
             }
-            result.append(line);
         }
-        return result.toString();
+        String charset = request.getCharacterEncoding();
+        String body = new String(buffer, 0, length, charset != null ? charset : StandardCharsets.UTF_8.name());
+        if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+            BUFFERS.offer(buffer);
+        }
+        return body;
     }
 
     /**
-     * 数据解密
+     * 数据解密，包级可见，供基准测试直接调用
      *
      * @param body
      * @return
      * @throws Exception
      */
-    private String decryptData(String body) throws Exception {
+    String decryptData(String body) throws Exception {
         JSONObject resultObject = JSON.parseObject(body);
         JSONObject resource = resultObject.getJSONObject("resource");
         String ciphertext = resource.getString("ciphertext");
         String nonce = resource.getString("nonce");
         String associatedData = resource.getString("associated_data");
 
-        AesUtil aesUtil = new AesUtil(weChatProperties.getApiV3Key().getBytes(StandardCharsets.UTF_8));
         //密文解密
-        String plainText = aesUtil.decryptToString(associatedData.getBytes(StandardCharsets.UTF_8),
+        String plainText = weChatPayDecryptor.decryptToString(associatedData.getBytes(StandardCharsets.UTF_8),
                 nonce.getBytes(StandardCharsets.UTF_8),
                 ciphertext);
 
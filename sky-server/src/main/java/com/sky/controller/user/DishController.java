@@ -5,6 +5,7 @@ import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Dish;
 import com.sky.exception.ListFailedException;
+import com.sky.metrics.CacheMetrics;
 import com.sky.result.Result;
 import com.sky.service.DishService;
 import com.sky.vo.DishVO;
@@ -33,6 +34,8 @@ public class DishController {
     private RedisTemplate redisTemplate;
     @Autowired
     private BloomFilter bloomFilter;
+    @Autowired
+    private CacheMetrics cacheMetrics;
 
     /**
      * 根据分类id查询菜品
@@ -49,18 +52,23 @@ public class DishController {
 
         // 使用布隆过滤器判断菜品是否存在，以防止缓存击穿
         if (!bloomFilter.mightContain(key)) {
+            cacheMetrics.bloomRejected("DishCache");
             throw new ListFailedException(MessageConstant.DISH_NOT_FOUND);
         }
 
         // 查询缓存是否存在菜品，若存在，则直接返回缓存的结果
         ValueOperations opsForValue = redisTemplate.opsForValue();
         Result<List<DishVO>> result = (Result<List<DishVO>>) opsForValue.get(key);
-        if (result != null) return result;
+        if (result != null) {
+            cacheMetrics.hit("DishCache");
+            return result;
+        }
 
         // 先获取分布式锁，再查询数据库，以防止缓存穿透
         // 设置一分钟的超时，防止下次缓存一直不能加载数据库，若释放分布式锁失败
         if (opsForValue.setIfAbsent(keyMutex, 1, 1, TimeUnit.MINUTES)) {
             // 查询数据库
+            cacheMetrics.miss("DishCache");
             Dish dish = new Dish();
             dish.setCategoryId(categoryId);
             dish.setStatus(StatusConstant.ENABLE);// 查询起售中的菜品
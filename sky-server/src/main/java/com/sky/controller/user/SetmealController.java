@@ -5,6 +5,7 @@ import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Setmeal;
 import com.sky.exception.ListFailedException;
+import com.sky.metrics.CacheMetrics;
 import com.sky.result.Result;
 import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
@@ -36,6 +37,8 @@ public class SetmealController {
     private RedisTemplate redisTemplate;
     @Autowired
     private BloomFilter bloomFilter;
+    @Autowired
+    private CacheMetrics cacheMetrics;
 
     /**
      * 条件查询
@@ -52,18 +55,23 @@ public class SetmealController {
 
         // 使用布隆过滤器判断套餐是否存在，以防止缓存击穿
         if (!bloomFilter.mightContain(key)) {
+            cacheMetrics.bloomRejected("SetmealCache");
             throw new ListFailedException(MessageConstant.DISH_NOT_FOUND);
         }
 
         // 查询缓存是否存在套餐，若存在，则直接返回缓存的结果
         ValueOperations opsForValue = redisTemplate.opsForValue();
         Result<List<Setmeal>> result = (Result<List<Setmeal>>) opsForValue.get(key);
-        if (result != null) return result;
+        if (result != null) {
+            cacheMetrics.hit("SetmealCache");
+            return result;
+        }
 
         // 先获取分布式锁，再查询数据库，以防止缓存穿透
         // 设置一分钟的超时，防止下次缓存一直不能加载数据库，若释放分布式锁失败
         if (opsForValue.setIfAbsent(keyMutex, 1, 1, TimeUnit.MINUTES)) {
             // 查询数据库
+            cacheMetrics.miss("SetmealCache");
             Setmeal setmeal = new Setmeal();
             setmeal.setCategoryId(categoryId);
             setmeal.setStatus(StatusConstant.ENABLE);
@@ -3,13 +3,15 @@ package com.sky.interceptor;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.context.BaseContext;
 import com.sky.properties.JwtProperties;
-import com.sky.utils.JwtUtil;
+import com.sky.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -22,6 +24,15 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
 
     @Autowired
     private JwtProperties jwtProperties;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtTokenCache jwtTokenCache;
+
+    @PostConstruct
+    public void init() {
+        jwtTokenCache = new JwtTokenCache(jwtProperties.getAdminSecretKey(), jwtProperties.getAdminTtl(), jwtProperties.getTokenCacheSize());
+    }
 
     /**
      * 校验jwt
@@ -44,10 +55,14 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
 
         //2、校验令牌
         try {
-            log.info("jwt校验:{}", token);
-            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
+            Claims claims = jwtTokenCache.parse(token);
+            if (tokenRevocationService.isRevoked(claims)) {
+                //令牌已注销，响应401状态码
+                response.setStatus(401);
+                return false;
+            }
             Long empId = Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString());
-            log.info("当前员工id：", empId);
+            log.debug("当前员工id：{}", empId);
             // 存储用户ID到ThreadLocal中
             BaseContext.setCurrentId(empId);
             //3、通过，放行
@@ -58,4 +73,17 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
             return false;
         }
     }
+
+    /**
+     * 请求结束后清除当前用户id，避免线程被复用时读到上一个请求的用户
+     *
+     * @param request
+     * @param response
+     * @param handler
+     * @param ex
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        BaseContext.removeCurrentId();
+    }
 }
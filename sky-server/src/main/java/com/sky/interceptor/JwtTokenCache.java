@@ -0,0 +1,57 @@
+package com.sky.interceptor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sky.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已校验通过的jwt令牌缓存，令牌 -> 令牌中的信息
+ * 命中时无需再次验签和解析，令牌到期后缓存的信息不再使用
+ * 每个秘钥使用单独的缓存，管理端和用户端的令牌互不通用
+ */
+public class JwtTokenCache {
+    private final String secretKey;
+    private final Cache<String, Claims> cache;
+
+    /**
+     * @param secretKey   jwt秘钥
+     * @param ttlMillis   jwt过期时间(毫秒)，缓存的令牌最多保留这么久
+     * @param maximumSize 最多缓存的令牌数量
+     */
+    public JwtTokenCache(String secretKey, long ttlMillis, long maximumSize) {
+        this.secretKey = secretKey;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 解析令牌，缓存中没有或已到期时重新验签并解析
+     *
+     * @param token
+     * @return
+     */
+    public Claims parse(String token) {
+        if (token == null) {
+            return JwtUtil.parseJWT(secretKey, token);
+        }
+
+        Claims claims = cache.getIfPresent(token);
+        if (claims != null) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.getTime() > System.currentTimeMillis()) {
+                return claims;
+            }
+            cache.invalidate(token);
+        }
+
+        claims = JwtUtil.parseJWT(secretKey, token);
+        cache.put(token, claims);
+        return claims;
+    }
+}
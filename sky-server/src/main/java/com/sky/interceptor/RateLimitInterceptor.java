@@ -0,0 +1,201 @@
+package com.sky.interceptor;
+
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.properties.RateLimitProperties;
+import com.sky.result.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 接口限流的拦截器，每个用户在每个接口上各有一个令牌桶
+ * 先检查本地令牌桶，本地已无令牌时直接拒绝，不再访问Redis；本地有令牌时再由Redis中的令牌桶决定，保证集群内的总速率不超过配置
+ * 需注册在jwt令牌校验的拦截器之后，以便获取当前用户id
+ */
+@Component
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String KEY_PREFIX = "RATE_LIMIT::";
+
+    /**
+     * 令牌桶，先按距上次请求的时间补充令牌，再尝试取出一个令牌，返回1表示允许
+     * 使用Redis服务器的时间，集群各节点的时钟偏差不会影响补充的令牌数
+     * 令牌桶在一段时间无人访问（补满所需的时间）后自动过期
+     */
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            // 读取时间后仍需写入，Redis 5以下需按命令复制
+            "redis.replicate_commands() " +
+                    "local capacity = tonumber(ARGV[1]) " +
+                    "local rate = tonumber(ARGV[2]) " +
+                    "local time = redis.call('time') " +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+                    "local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts') " +
+                    "local tokens = tonumber(bucket[1]) " +
+                    "local ts = tonumber(bucket[2]) " +
+                    "if tokens == nil then tokens = capacity ts = now end " +
+                    "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) " +
+                    "local allowed = 0 " +
+                    "if tokens >= 1 then tokens = tokens - 1 allowed = 1 end " +
+                    "redis.call('hmset', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+                    "redis.call('pexpire', KEYS[1], math.ceil(capacity / rate * 1000) + 1000) " +
+                    "return allowed", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RateLimitProperties rateLimitProperties;
+
+    // 接口路径 -> 限流规则
+    private Map<String, RateLimitProperties.Rule> rules;
+    // 接口路径::用户 -> 本地令牌桶
+    private Cache<String, LocalTokenBucket> localBuckets;
+
+    @PostConstruct
+    public void init() {
+        rules = new HashMap<>();
+        for (RateLimitProperties.Rule rule : rateLimitProperties.getRules()) {
+            rules.put(rule.getPath(), rule);
+        }
+        localBuckets = CacheBuilder.newBuilder()
+                .maximumSize(rateLimitProperties.getLocalBucketSize())
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        log.info("接口限流规则：{}", rules.keySet());
+    }
+
+    /**
+     * 需要限流的接口路径，用于注册拦截器
+     *
+     * @return
+     */
+    public List<String> getPaths() {
+        return rateLimitProperties.getRules().stream()
+                .map(RateLimitProperties.Rule::getPath)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 检查当前用户在当前接口上是否还有令牌
+     *
+     * @param request
+     * @param response
+     * @param handler
+     * @return
+     * @throws Exception
+     */
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!rateLimitProperties.isEnabled() || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        // 按Controller中的映射路径查找规则，如 /user/order/reminder/{id}
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        RateLimitProperties.Rule rule = pattern == null ? null : rules.get(pattern.toString());
+        if (rule == null) {
+            return true;
+        }
+
+        // 已登录的用户按用户id限流，否则按IP限流
+        Long userId = BaseContext.getCurrentId();
+        String key = rule.getPath() + "::" + (userId != null ? userId : request.getRemoteAddr());
+
+        if (!localBuckets.get(key, () -> new LocalTokenBucket(rule)).tryAcquire() || !tryAcquire(key, rule)) {
+            log.debug("请求过于频繁，已拒绝：{}", key);
+            reject(response, rule);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 从Redis中的令牌桶取出一个令牌，Redis不可用时放行
+     *
+     * @param key
+     * @param rule
+     * @return
+     */
+    private boolean tryAcquire(String key, RateLimitProperties.Rule rule) {
+        try {
+            Long allowed = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, Collections.singletonList(KEY_PREFIX + key),
+                    String.valueOf(rule.getCapacity()), String.valueOf(rule.getRefillPerSecond()));
+            return allowed == null || allowed == 1L;
+        } catch (Exception e) {
+            log.warn("访问限流令牌桶失败，放行请求：{}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 响应429状态码，并提示用户稍后再试
+     *
+     * @param response
+     * @param rule
+     * @throws Exception
+     */
+    private void reject(HttpServletResponse response, RateLimitProperties.Rule rule) throws Exception {
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf((long) Math.ceil(1 / rule.getRefillPerSecond())));
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write(JSONObject.toJSONString(Result.error(MessageConstant.REQUEST_TOO_FREQUENT)));
+    }
+
+    /**
+     * 本地令牌桶，容量和补充速率与Redis中的令牌桶相同
+     */
+    static class LocalTokenBucket {
+        private final double capacity;
+        private final double refillPerMillis;
+        private double tokens;
+        private long lastRefillTime;
+
+        LocalTokenBucket(RateLimitProperties.Rule rule) {
+            this(rule, System.currentTimeMillis());
+        }
+
+        LocalTokenBucket(RateLimitProperties.Rule rule, long now) {
+            this.capacity = rule.getCapacity();
+            this.refillPerMillis = rule.getRefillPerSecond() / 1000;
+            this.tokens = capacity;
+            this.lastRefillTime = now;
+        }
+
+        boolean tryAcquire() {
+            return tryAcquire(System.currentTimeMillis());
+        }
+
+        /**
+         * 按指定时间补充令牌后尝试取出一个令牌
+         *
+         * @param now 当前时间戳（毫秒）
+         * @return
+         */
+        synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + Math.max(0, now - lastRefillTime) * refillPerMillis);
+            lastRefillTime = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
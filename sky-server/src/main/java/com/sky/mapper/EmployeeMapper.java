@@ -8,6 +8,7 @@ import com.sky.enumeration.OperationType;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -34,4 +35,13 @@ public interface EmployeeMapper {
     void update(Employee employee);
 
     List<Employee> select(Employee employee);
+
+    /**
+     * 修改员工密码，仅用于登录时将旧的密码哈希升级为新算法，不修改更新时间和更新人
+     *
+     * @param id
+     * @param password
+     */
+    @Update("update employee set password = #{password} where id = #{id}")
+    void updatePassword(Long id, String password);
 }
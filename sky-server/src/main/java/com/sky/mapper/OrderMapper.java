@@ -3,6 +3,7 @@ package com.sky.mapper;
 import com.github.pagehelper.Page;
 import com.sky.dto.GoodsSalesDTO;
 import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.dto.OrdersTransitionDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
@@ -35,6 +36,14 @@ public interface OrderMapper {
      */
     void update(Orders orders);
 
+    /**
+     * 修改订单信息，仅当订单仍处于指定的原状态时才会修改
+     *
+     * @param ordersTransitionDTO
+     * @return 实际修改的行数
+     */
+    Integer updateByStatus(OrdersTransitionDTO ordersTransitionDTO);
+
     /**
      * 历史订单查询
      *
@@ -62,14 +71,51 @@ public interface OrderMapper {
     Integer countByStatus(Integer toBeConfirmed);
 
     /**
-     * 根据订单状态和小于的下单时间查询订单
+     * 根据订单状态和小于的下单时间，按id递增分页查询订单id
      *
      * @param status
      * @param orderTime
+     * @param lastId    上一页最后一个订单id
+     * @param limit     每页数量
+     * @return
+     */
+    @Select("select id from orders where status = #{status} and order_time < #{orderTime} and id > #{lastId} " +
+            "order by id limit #{limit}")
+    List<Long> getIdsByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime, Long lastId, Integer limit);
+
+    /**
+     * 根据订单状态和下单时间区间，按id递增分页查询订单id和订单号
+     *
+     * @param status
+     * @param beginTime
+     * @param endTime
+     * @param lastId    上一页最后一个订单id
+     * @param limit     每页数量
      * @return
      */
-    @Select("select * from orders where status = #{status} and order_time < #{orderTime}")
-    List<Orders> getByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime);
+    @Select("select id, number from orders where status = #{status} and order_time between #{beginTime} and #{endTime} " +
+            "and id > #{lastId} order by id limit #{limit}")
+    List<Orders> getByStatusAndOrderTimeBetween(Integer status, LocalDateTime beginTime, LocalDateTime endTime,
+                                                Long lastId, Integer limit);
+
+    /**
+     * 根据订单id批量查询仍处于指定状态的订单id和订单号
+     *
+     * @param ids
+     * @param status
+     * @return
+     */
+    List<Orders> getByIdsAndStatus(List<Long> ids, Integer status);
+
+    /**
+     * 根据订单id批量修改订单信息，仅当订单仍处于指定状态时才会修改
+     *
+     * @param ids
+     * @param fromStatus 修改前订单应处于的状态
+     * @param orders     待修改的字段
+     * @return 实际修改的行数
+     */
+    Integer updateBatchByStatus(List<Long> ids, Integer fromStatus, Orders orders);
 
     /**
      * 根据订单状态和下单时间统计营业额
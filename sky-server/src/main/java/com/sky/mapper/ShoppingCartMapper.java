@@ -1,6 +1,8 @@
 package com.sky.mapper;
 
+import com.sky.annotation.AutoFill;
 import com.sky.entity.ShoppingCart;
+import com.sky.enumeration.OperationType;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 
@@ -25,6 +27,7 @@ public interface ShoppingCartMapper {
      * 插入商品
      * @param shoppingCart
      */
+    @AutoFill(OperationType.INSERT)
     void insert(ShoppingCart shoppingCart);
 
     /**
@@ -46,5 +49,6 @@ public interface ShoppingCartMapper {
      * 批量插入商品
      * @param shoppingCarts
      */
+    @AutoFill(OperationType.INSERT)
     void insertBatch(List<ShoppingCart> shoppingCarts);
 }
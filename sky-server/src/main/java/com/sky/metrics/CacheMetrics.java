@@ -0,0 +1,62 @@
+package com.sky.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 统计菜品、套餐缓存的命中、未命中次数，以及被布隆过滤器拦截的次数
+ */
+@Component
+public class CacheMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 缓存名称 -> 计数器，每个缓存只在首次使用时注册
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+    private final Map<String, Counter> bloomRejections = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存命中
+     *
+     * @param cacheName 缓存名称，如 DishCache、SetmealCache
+     */
+    public void hit(String cacheName) {
+        hits.computeIfAbsent(cacheName, name -> request(name, "hit")).increment();
+    }
+
+    /**
+     * 缓存未命中，需要查询数据库
+     *
+     * @param cacheName
+     */
+    public void miss(String cacheName) {
+        misses.computeIfAbsent(cacheName, name -> request(name, "miss")).increment();
+    }
+
+    /**
+     * 布隆过滤器判断分类不存在，请求被拦截
+     *
+     * @param cacheName
+     */
+    public void bloomRejected(String cacheName) {
+        bloomRejections.computeIfAbsent(cacheName, name -> Counter.builder("sky.bloom.rejections")
+                .description("被布隆过滤器拦截的请求数")
+                .tag("cache", name)
+                .register(meterRegistry)).increment();
+    }
+
+    private Counter request(String cacheName, String result) {
+        return Counter.builder("sky.cache.requests")
+                .description("缓存的查询次数")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
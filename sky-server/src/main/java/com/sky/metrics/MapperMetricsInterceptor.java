@@ -0,0 +1,64 @@
+package com.sky.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MyBatis插件，按Mapper方法统计SQL的执行耗时
+ * 注册为Spring对象后由mybatis-spring-boot-starter自动添加到SqlSessionFactory中
+ * 语句数量较多，默认不发布直方图，需要时通过 management.metrics.distribution.percentiles-histogram.sky.mapper.statements 开启
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 语句id -> 耗时统计，每条语句只在首次执行时注册
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> errorTimers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Object result = invocation.proceed();
+            sample.stop(timer(successTimers, mappedStatement, "success"));
+            return result;
+        } catch (Throwable e) {
+            sample.stop(timer(errorTimers, mappedStatement, "error"));
+            throw e;
+        }
+    }
+
+    private Timer timer(Map<String, Timer> timers, MappedStatement mappedStatement, String outcome) {
+        // 语句id即Mapper方法的全限定名，如 com.sky.mapper.OrderMapper.getById
+        return timers.computeIfAbsent(mappedStatement.getId(), id -> Timer.builder("sky.mapper.statements")
+                .description("Mapper方法的执行耗时")
+                .tag("statement", id)
+                .tag("type", mappedStatement.getSqlCommandType().name())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
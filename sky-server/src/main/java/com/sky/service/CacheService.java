@@ -0,0 +1,11 @@
+package com.sky.service;
+
+public interface CacheService {
+
+    /**
+     * 异步清空缓存，处于事务中时在事务提交后才清空，避免清空后又被读入未提交前的旧数据
+     *
+     * @param cacheName 缓存名称，如 DishCache、SetmealCache
+     */
+    void evictAll(String cacheName);
+}
@@ -11,9 +11,10 @@ public interface EmployeeService {
     /**
      * 员工登录
      * @param employeeLoginDTO
+     * @param ip               登录请求的来源IP
      * @return
      */
-    Employee login(EmployeeLoginDTO employeeLoginDTO);
+    Employee login(EmployeeLoginDTO employeeLoginDTO, String ip);
 
     /**
      * 新增用户
@@ -0,0 +1,28 @@
+package com.sky.service;
+
+import com.sky.vo.JobStatsVO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobService {
+
+    /**
+     * 记录定时任务的一次运行
+     *
+     * @param name     任务名称
+     * @param node     执行节点
+     * @param runTime  开始时间
+     * @param duration 耗时（毫秒）
+     * @param rows     影响的行数
+     * @param success  是否执行成功
+     */
+    void recordRun(String name, String node, LocalDateTime runTime, long duration, long rows, boolean success);
+
+    /**
+     * 查询所有定时任务的运行统计
+     *
+     * @return
+     */
+    List<JobStatsVO> listStats();
+}
@@ -0,0 +1,12 @@
+package com.sky.service;
+
+public interface PayNotifyService {
+
+    /**
+     * 处理支付成功通知，同一笔交易的重复通知直接忽略
+     *
+     * @param transactionId 微信支付交易号
+     * @param outTradeNo    商户平台订单号
+     */
+    void paySuccess(String transactionId, String outTradeNo);
+}
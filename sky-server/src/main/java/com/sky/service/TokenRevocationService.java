@@ -0,0 +1,28 @@
+package com.sky.service;
+
+import io.jsonwebtoken.Claims;
+
+public interface TokenRevocationService {
+
+    /**
+     * 注销令牌，令牌到期前都不能再使用
+     *
+     * @param claims 令牌中的信息
+     */
+    void revoke(Claims claims);
+
+    /**
+     * 注销员工此前签发的全部令牌，如员工被禁用
+     *
+     * @param empId
+     */
+    void revokeEmployee(Long empId);
+
+    /**
+     * 判断令牌是否已注销，只查询本地数据，不访问Redis
+     *
+     * @param claims 令牌中的信息
+     * @return
+     */
+    boolean isRevoked(Claims claims);
+}
@@ -0,0 +1,57 @@
+package com.sky.service.impl;
+
+import com.sky.service.CacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 缓存清理，清空整个缓存需要扫描并删除Redis中的所有相关key，放到cacheExecutor线程池中执行，不占用请求线程
+ */
+@Service
+@Slf4j
+public class CacheServiceImpl implements CacheService {
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    @Qualifier("cacheExecutor")
+    private ThreadPoolTaskExecutor cacheExecutor;
+
+    /**
+     * 异步清空缓存
+     *
+     * @param cacheName
+     */
+    @Override
+    public void evictAll(String cacheName) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheExecutor.execute(() -> clear(cacheName));
+                }
+            });
+        } else {
+            cacheExecutor.execute(() -> clear(cacheName));
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.clear();
+            log.debug("清空缓存：{}", cacheName);
+        } catch (Exception e) {
+            log.error("清空缓存{}失败：{}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -59,7 +59,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         categoryMapper.insert(category);
 
-        // 更新布隆过滤器
+        // 更新布隆过滤器，须在返回前同步完成，否则新分类的查询会被拦截
         bloomFilter.put("DishCache::" + category.getId());
         bloomFilter.put("SetmealCache::" + category.getId());
     }
@@ -12,60 +12,149 @@ import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
 import com.sky.exception.AccountLockedException;
 import com.sky.exception.AccountNotFoundException;
+import com.sky.exception.LoginFailedException;
 import com.sky.exception.PasswordErrorException;
 import com.sky.mapper.EmployeeMapper;
+import com.sky.properties.LoginProperties;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.EmployeeService;
+import com.sky.service.TokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Slf4j
 public class EmployeeServiceImpl implements EmployeeService {
+    private static final String LOGIN_FAILURE_KEY_PREFIX = "LOGIN_FAILURE::";
+    private static final String BCRYPT_PREFIX = "$2";
+
+    /**
+     * 登录尝试计数，加1后返回当前次数；第一次计数时设置过期时间
+     * 计数和比较上限合并为一次原子操作，并发的登录请求不能同时通过检查
+     */
+    private static final DefaultRedisScript<Long> ATTEMPT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('incr', KEYS[1]) " +
+                    "if count == 1 then redis.call('expire', KEYS[1], ARGV[1]) end " +
+                    "return count", Long.class);
 
     @Autowired
     private EmployeeMapper employeeMapper;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private LoginProperties loginProperties;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // 用户名不存在时用于比对的哈希，与真实密码使用相同的强度
+    private String dummyPasswordHash;
+
+    @PostConstruct
+    public void init() {
+        dummyPasswordHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
 
     /**
      * 员工登录
      *
      * @param employeeLoginDTO
+     * @param ip 客户端IP，经反向代理时为X-Forwarded-For中的原始IP
      * @return
      */
-    public Employee login(EmployeeLoginDTO employeeLoginDTO) {
+    public Employee login(EmployeeLoginDTO employeeLoginDTO, String ip) {
         String username = employeeLoginDTO.getUsername();
         String password = employeeLoginDTO.getPassword();
 
-        // 1、根据用户名查询数据库中的数据
+        // 1、先计入本次尝试，超过上限的用户名或IP直接拒绝，不再查询数据库；登录成功后再撤销计数
+        String usernameKey = LOGIN_FAILURE_KEY_PREFIX + "username::" + username;
+        String ipKey = LOGIN_FAILURE_KEY_PREFIX + "ip::" + ip;
+        long usernameAttempts = attempt(usernameKey);
+        long ipAttempts = attempt(ipKey);
+        if (usernameAttempts > loginProperties.getMaxUsernameFailures()
+                || ipAttempts > loginProperties.getMaxIpFailures()) {
+            throw new LoginFailedException(MessageConstant.LOGIN_TOO_MANY_FAILURES);
+        }
+
+        // 2、根据用户名查询数据库中的数据
         Employee employee = employeeMapper.getByUsername(username);
 
-        // 2、处理各种异常情况（用户名不存在、密码不对、账号被锁定）
+        // 3、处理各种异常情况（用户名不存在、密码不对、账号被锁定）
         if (employee == null) {
+            // 同样进行一次哈希计算，避免通过响应时间判断用户名是否存在
+            if (password != null) {
+                passwordEncoder.matches(password, dummyPasswordHash);
+            }
             // 账号不存在
             throw new AccountNotFoundException(MessageConstant.ACCOUNT_NOT_FOUND);
         }
 
         // 密码比对
-        password = DigestUtils.md5DigestAsHex(password.getBytes());
-        if (!password.equals(employee.getPassword())) {
+        if (!matches(employee, password)) {
             // 密码错误
             throw new PasswordErrorException(MessageConstant.PASSWORD_ERROR);
         }
+        stringRedisTemplate.delete(usernameKey);
+        stringRedisTemplate.opsForValue().decrement(ipKey);
 
         if (employee.getStatus() == StatusConstant.DISABLE) {
             // 账号被锁定
             throw new AccountLockedException(MessageConstant.ACCOUNT_LOCKED);
         }
 
-        // 3、返回实体对象
+        // 4、返回实体对象
         return employee;
     }
 
+    /**
+     * 比对密码，旧的MD5密码比对成功后升级为BCrypt
+     *
+     * @param employee
+     * @param password
+     * @return
+     */
+    private boolean matches(Employee employee, String password) {
+        String hash = employee.getPassword();
+        if (hash == null || password == null) {
+            return false;
+        }
+        if (hash.startsWith(BCRYPT_PREFIX)) {
+            return passwordEncoder.matches(password, hash);
+        }
+
+        // 旧的无盐MD5密码，使用固定时间的方式比较
+        byte[] md5 = DigestUtils.md5DigestAsHex(password.getBytes(StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(md5, hash.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        employeeMapper.updatePassword(employee.getId(), passwordEncoder.encode(password));
+        log.info("员工{}的密码已升级为BCrypt", employee.getUsername());
+        return true;
+    }
+
+    private long attempt(String key) {
+        Long count = stringRedisTemplate.execute(ATTEMPT_SCRIPT, Collections.singletonList(key),
+                String.valueOf(TimeUnit.MINUTES.toSeconds(loginProperties.getLockMinutes())));
+        return count == null ? 0 : count;
+    }
+
     /**
      * 新增员工
      *
@@ -80,7 +169,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         // 设置账户状态，默认为启用
         employee.setStatus(StatusConstant.ENABLE);
         // 设置账户密码，默认为123456
-        employee.setPassword(DigestUtils.md5DigestAsHex(PasswordConstant.DEFAULT_PASSWORD.getBytes()));
+        employee.setPassword(passwordEncoder.encode(PasswordConstant.DEFAULT_PASSWORD));
         // AOP为公共字段自动赋值
         // // 设置账户的创建、修改时间
         // employee.setCreateTime(LocalDateTime.now());
@@ -123,6 +212,11 @@ public class EmployeeServiceImpl implements EmployeeService {
                 .id(id)
                 .build();
         employeeMapper.update(employee);
+
+        // 禁用员工后，其已登录的令牌立即失效
+        if (StatusConstant.DISABLE.equals(status)) {
+            tokenRevocationService.revokeEmployee(id);
+        }
     }
 
     /**
@@ -0,0 +1,87 @@
+package com.sky.service.impl;
+
+import com.sky.service.JobService;
+import com.sky.vo.JobStatsVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 定时任务运行统计，保存在Redis中以便查看整个集群的执行情况
+ */
+@Service
+public class JobServiceImpl implements JobService {
+    private static final String NAMES_KEY = "JOB_STATS_NAMES";
+    private static final String STATS_KEY_PREFIX = "JOB_STATS::";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 记录定时任务的一次运行
+     *
+     * @param name
+     * @param node
+     * @param runTime
+     * @param duration
+     * @param rows
+     * @param success
+     */
+    @Override
+    public void recordRun(String name, String node, LocalDateTime runTime, long duration, long rows, boolean success) {
+        String key = STATS_KEY_PREFIX + name;
+        Map<String, String> stats = new HashMap<>();
+        stats.put("node", node);
+        stats.put("lastRunTime", runTime.toString());
+        stats.put("lastDuration", String.valueOf(duration));
+        stats.put("rowsAffected", String.valueOf(rows));
+        stats.put("lastResult", success ? "SUCCESS" : "FAILED");
+
+        HashOperations<String, String, String> opsForHash = stringRedisTemplate.opsForHash();
+        opsForHash.putAll(key, stats);
+        opsForHash.increment(key, "runs", 1);
+        stringRedisTemplate.opsForSet().add(NAMES_KEY, name);
+    }
+
+    /**
+     * 查询所有定时任务的运行统计
+     *
+     * @return
+     */
+    @Override
+    public List<JobStatsVO> listStats() {
+        List<JobStatsVO> jobStatsVOS = new ArrayList<>();
+        Set<String> names = stringRedisTemplate.opsForSet().members(NAMES_KEY);
+        if (names == null || names.isEmpty()) {
+            return jobStatsVOS;
+        }
+
+        HashOperations<String, String, String> opsForHash = stringRedisTemplate.opsForHash();
+        for (String name : new TreeSet<>(names)) {
+            Map<String, String> stats = opsForHash.entries(STATS_KEY_PREFIX + name);
+            jobStatsVOS.add(JobStatsVO.builder()
+                    .name(name)
+                    .node(stats.get("node"))
+                    .lastRunTime(stats.get("lastRunTime"))
+                    .lastDuration(toLong(stats.get("lastDuration")))
+                    .rowsAffected(toLong(stats.get("rowsAffected")))
+                    .lastResult(stats.get("lastResult"))
+                    .runs(toLong(stats.get("runs")))
+                    .build());
+        }
+        return jobStatsVOS;
+    }
+
+    private Long toLong(String value) {
+        return value == null ? null : Long.valueOf(value);
+    }
+}
@@ -11,15 +11,20 @@ import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.properties.OrderProperties;
 import com.sky.result.PageResult;
 import com.sky.service.OrderService;
+import com.sky.statemachine.OrderStateMachine;
+import com.sky.statemachine.OrderStatusCounter;
+import com.sky.statemachine.OrderTransition;
+import com.sky.task.OrderTimeoutQueue;
 import com.sky.utils.BaiduGeocodingUtil;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
-import com.sky.websocket.WebSocketServer;
+import com.sky.websocket.OrderEventNotifier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,7 +55,15 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private BaiduGeocodingUtil baiduGeocodingUtil;
     @Autowired
-    private WebSocketServer webSocketServer;
+    private OrderEventNotifier orderEventNotifier;
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+    @Autowired
+    private OrderProperties orderProperties;
 
 
     /**
@@ -108,6 +121,9 @@ public class OrderServiceImpl implements OrderService {
         // 清理购物车数据
         shoppingCartMapper.deleteByUserId(userId);
 
+        // 登记订单的支付超时时间，到期后由延迟队列自动取消
+        orderTimeoutQueue.add(orderId, order.getOrderTime().plusMinutes(orderProperties.getPayTimeout()));
+
         // 4. 封装返回数据OrderSubmitVO
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder().id(orderId).orderNumber(order.getNumber()).orderAmount(order.getAmount()).orderTime(order.getOrderTime()).build();
         return orderSubmitVO;
@@ -157,16 +173,26 @@ public class OrderServiceImpl implements OrderService {
     public void paySuccess(String outTradeNo) {
         // 根据订单号查询订单
         Orders ordersDB = orderMapper.getByNumber(outTradeNo);
+        if (ordersDB == null) {
+            log.warn("支付成功通知的订单{}不存在", outTradeNo);
+            return;
+        }
 
-        // 根据订单id更新订单的状态、支付方式、支付状态、结账时间
+        // 仅“待付款”的订单可流转为“待接单”，并更新支付状态、结账时间
         Orders order = Orders.builder()
                 .id(ordersDB.getId())
-                .status(Orders.TO_BE_CONFIRMED)
                 .payStatus(Orders.PAID)
                 .checkoutTime(LocalDateTime.now())
                 .build();
 
-        orderMapper.update(order);
+        if (orderStateMachine.fire(OrderTransition.PAY, order) == null) {
+            // 订单已支付或已取消，不再重复提醒
+            log.info("订单{}不处于待付款状态，忽略支付成功通知", outTradeNo);
+            return;
+        }
+
+        // 订单已支付，无需再等待超时取消
+        orderTimeoutQueue.remove(order.getId());
 
         // 通过WebSocket实现来单提醒，向客户端浏览器推送消息
         Map<Object, Object> paramMap = new HashMap<>();
@@ -174,7 +200,7 @@ public class OrderServiceImpl implements OrderService {
         paramMap.put("orderId", order.getId());
         paramMap.put("content", "订单号：" + outTradeNo);
 
-        webSocketServer.sendToAllClient(JSONObject.toJSONString(paramMap));
+        orderEventNotifier.notifyShop(paramMap, null);
     }
 
     /**
@@ -229,21 +255,17 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void userCancelById(Long id) throws Exception {
-        // 根据Id查询订单，并处理业务异常
-        // 判订单是否存在
-        Orders order = orderMapper.getById(id);
-        if (order == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-
-        // 判当前订单状态是否可取消，仅“代付款”、“待接单”可取消
+        // 更新订单状态、取消原因、取消时间，仅“待付款”、“待接单”可取消
         // 订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
-        if (order.getStatus() > 2) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
+        Orders order = Orders.builder()
+                .id(id)
+                .cancelReason("用户取消")
+                .cancelTime(LocalDateTime.now())
+                .build();
+        Integer fromStatus = orderStateMachine.fireOrThrow(OrderTransition.USER_CANCEL, order);
 
-        // 若用户已支付，则需退款
-        if (order.getPayStatus().equals(Orders.PAID)) {
+        // 若用户已支付，则需退款，支付状态已由状态机修改为 退款
+        if (!Orders.PENDING_PAYMENT.equals(fromStatus)) {
             // 模拟退款成功，跳过微信退款过程
             /*
             weChatPayUtil.refund(
@@ -252,16 +274,9 @@ public class OrderServiceImpl implements OrderService {
                     new BigDecimal(0.01),// 退款金额，单位 元
                     new BigDecimal(0.01));// 原订单金额
             */
-
-            // 支付状态修改为 退款
-            order.setPayStatus(Orders.REFUND);
         }
 
-        // 更新订单状态、取消原因、取消时间
-        order.setStatus(Orders.CANCELLED);
-        order.setCancelReason("用户取消");
-        order.setCancelTime(LocalDateTime.now());
-        orderMapper.update(order);
+        orderTimeoutQueue.remove(id);
     }
 
     /**
@@ -283,7 +298,6 @@ public class OrderServiceImpl implements OrderService {
             ShoppingCart shoppingCart = new ShoppingCart();
             BeanUtils.copyProperties(orderDetail, shoppingCart, "id");
             shoppingCart.setUserId(userId);
-            shoppingCart.setCreateTime(LocalDateTime.now());
 
             shoppingCarts.add(shoppingCart);
         }
@@ -364,10 +378,11 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderStatisticsVO statistics() {
-        // 根据订单状态，分别查询待接单、已接单、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countByStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countByStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countByStatus(Orders.DELIVERY_IN_PROGRESS);
+        // 从计数器中读取待接单、已接单、派送中的订单数量，计数器由订单状态机维护
+        Map<Integer, Integer> counts = orderStatusCounter.get();
+        Integer toBeConfirmed = counts.get(Orders.TO_BE_CONFIRMED);
+        Integer confirmed = counts.get(Orders.CONFIRMED);
+        Integer deliveryInProgress = counts.get(Orders.DELIVERY_IN_PROGRESS);
 
         // 将查询结果封装到OrderStatisticsVO
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO(toBeConfirmed, confirmed, deliveryInProgress);
@@ -381,9 +396,10 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
-        Orders order = Orders.builder().id(ordersConfirmDTO.getId()).status(Orders.CONFIRMED).build();
+        // 仅“待接单”的订单可接单
+        Orders order = Orders.builder().id(ordersConfirmDTO.getId()).build();
 
-        orderMapper.update(order);
+        orderStateMachine.fireOrThrow(OrderTransition.CONFIRM, order);
     }
 
     /**
@@ -393,21 +409,16 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void rejection(OrdersRejectionDTO ordersRejectionDTO) throws Exception {
-        // 查询当前订单，处理业务异常
-        Orders order = orderMapper.getById(ordersRejectionDTO.getId());
-
-        // 判订单不存在
-        if (order == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-
-        // 判当前订单状态，因为只有“待接单”才可拒单
-        if (!order.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
+        // 更新订单，只有“待接单”才可拒单
+        Orders order = Orders.builder()
+                .id(ordersRejectionDTO.getId())
+                .cancelTime(LocalDateTime.now())
+                .rejectionReason(ordersRejectionDTO.getRejectionReason())
+                .build();
+        Integer fromStatus = orderStateMachine.fireOrThrow(OrderTransition.REJECT, order);
 
-        // 若用户已支付，则需退款
-        if (order.getPayStatus().equals(Orders.PAID)) {
+        // 若用户已支付，则需退款，支付状态已由状态机修改为 退款
+        if (!Orders.PENDING_PAYMENT.equals(fromStatus)) {
             /*
             // 模拟退款成功，跳过微信退款流程
             String refund = weChatPayUtil.refund(
@@ -417,15 +428,7 @@ public class OrderServiceImpl implements OrderService {
                     new BigDecimal(0.01));
             log.info("申请退款：{}", refund);
             */
-
-            order.setPayStatus(Orders.REFUND);
         }
-        // 更新订单
-        order.setStatus(Orders.CANCELLED);
-        order.setCancelTime(LocalDateTime.now());
-        order.setRejectionReason(ordersRejectionDTO.getRejectionReason());
-
-        orderMapper.update(order);
     }
 
     /**
@@ -435,16 +438,16 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void cancel(OrdersCancelDTO ordersCancelDTO) throws Exception {
-        // 查询当前订单，处理业务异常
-        Orders order = orderMapper.getById(ordersCancelDTO.getId());
-
-        // 判订单不存在
-        if (order == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
+        // 更新订单，已完成或已取消的订单不可取消
+        Orders order = Orders.builder()
+                .id(ordersCancelDTO.getId())
+                .cancelTime(LocalDateTime.now())
+                .cancelReason(ordersCancelDTO.getCancelReason())
+                .build();
+        Integer fromStatus = orderStateMachine.fireOrThrow(OrderTransition.ADMIN_CANCEL, order);
 
-        // 若用户已支付，则需退款
-        if (order.getPayStatus().equals(Orders.PAID)) {
+        // 若用户已支付，则需退款，支付状态已由状态机修改为 退款
+        if (!Orders.PENDING_PAYMENT.equals(fromStatus)) {
             /*
             // 模拟退款成功，跳过微信退款流程
             String refund = weChatPayUtil.refund(
@@ -454,16 +457,9 @@ public class OrderServiceImpl implements OrderService {
                     new BigDecimal(0.01));
             log.info("申请退款：{}", refund);
             */
-
-            order.setPayStatus(Orders.REFUND);
         }
 
-        // 更新订单
-        order.setStatus(Orders.CANCELLED);
-        order.setCancelTime(LocalDateTime.now());
-        order.setCancelReason(ordersCancelDTO.getCancelReason());
-
-        orderMapper.update(order);
+        orderTimeoutQueue.remove(ordersCancelDTO.getId());
     }
 
     /**
@@ -473,23 +469,10 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void delivery(Long id) {
-        // 查询当前订单，处理业务异常
-        Orders order = orderMapper.getById(id);
-
-        // 判订单不存在
-        if (order == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
+        // 更新订单，只有“已接单”才可派送
+        Orders order = Orders.builder().id(id).build();
 
-        // 判订单状态为“已接单”
-        if (!order.getStatus().equals(Orders.CONFIRMED)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
-        // 更新订单
-        order.setStatus(Orders.DELIVERY_IN_PROGRESS);
-
-        orderMapper.update(order);
+        orderStateMachine.fireOrThrow(OrderTransition.DELIVER, order);
     }
 
     /**
@@ -499,24 +482,13 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void complete(Long id) {
-        // 查询当前订单，处理业务异常
-        Orders order = orderMapper.getById(id);
-
-        // 判订单不存在
-        if (order == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-
-        // 判订单状态为“派送中”
-        if (!order.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
-        // 更新订单
-        order.setStatus(Orders.COMPLETED);
-        order.setDeliveryTime(LocalDateTime.now());
+        // 更新订单，只有“派送中”才可完成
+        Orders order = Orders.builder()
+                .id(id)
+                .deliveryTime(LocalDateTime.now())
+                .build();
 
-        orderMapper.update(order);
+        orderStateMachine.fireOrThrow(OrderTransition.COMPLETE, order);
     }
 
     /**
@@ -537,6 +509,7 @@ public class OrderServiceImpl implements OrderService {
         paramMap.put("orderId", id);
         paramMap.put("content", "订单号：" + order.getNumber());
 
-        webSocketServer.sendToAllClient(JSONObject.toJSONString(paramMap));
+        // 同一订单短时间内的多次催单合并为一条
+        orderEventNotifier.notifyShop(paramMap, "reminder:" + id);
     }
 }
@@ -0,0 +1,66 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.OrderBusinessException;
+import com.sky.service.OrderService;
+import com.sky.service.PayNotifyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付通知处理
+ * 微信支付会重复发送通知，以交易号作为幂等键：处理前先抢占短期的处理中租约，订单状态修改提交后才标记为已完成
+ * 租约过期后的重复处理由订单的条件更新（仅待付款的订单可流转）兜底
+ */
+@Service
+@Slf4j
+public class PayNotifyServiceImpl implements PayNotifyService {
+    private static final String KEY_PREFIX = "PAY_NOTIFY::";
+    private static final String PROCESSING = "PROCESSING";
+    private static final String DONE = "DONE";
+    // 处理中租约的时长，处理线程宕机后租约到期，重发的通知可重新处理
+    private static final long LEASE_TTL_SECONDS = 60;
+    // 已完成标记的保留时间，覆盖微信支付重发通知的时间范围
+    private static final long KEY_TTL_HOURS = 24;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * 处理支付成功通知
+     *
+     * @param transactionId
+     * @param outTradeNo
+     */
+    @Override
+    public void paySuccess(String transactionId, String outTradeNo) {
+        String key = KEY_PREFIX + (transactionId != null ? transactionId : outTradeNo);
+
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(key, PROCESSING, LEASE_TTL_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            if (DONE.equals(stringRedisTemplate.opsForValue().get(key))) {
+                log.info("重复的支付通知，交易号：{}，订单号：{}", transactionId, outTradeNo);
+                return;
+            }
+            // 其他线程正在处理，抛出异常由支付通知队列稍后重试，以免处理失败后通知丢失
+            throw new OrderBusinessException(MessageConstant.PAY_NOTIFY_PROCESSING);
+        }
+
+        try {
+            orderService.paySuccess(outTradeNo);
+        } catch (Throwable e) {
+            // 处理失败时释放租约，以便重试或微信支付重发通知时重新处理
+            stringRedisTemplate.delete(key);
+            throw e;
+        }
+
+        // 订单状态修改已提交，标记为已完成
+        stringRedisTemplate.opsForValue().set(key, DONE, KEY_TTL_HOURS, TimeUnit.HOURS);
+    }
+}
@@ -15,12 +15,12 @@ import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealDishMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
+import com.sky.service.CacheService;
 import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +38,8 @@ public class SetmealServiceImpl implements SetmealService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private CacheService cacheService;
 
     /**
      * 新增套餐，同时保存套餐和菜品的关联关系
@@ -46,7 +48,6 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     @Transactional
-    @CacheEvict(value = "SetmealCache", allEntries = true)
     public void saveWithDish(SetmealDTO setmealDTO) {
         Setmeal setmeal = new Setmeal();
         BeanUtils.copyProperties(setmealDTO, setmeal);
@@ -64,6 +65,8 @@ public class SetmealServiceImpl implements SetmealService {
             // 保存套餐和菜品的关联关系
             setmealDishMapper.insertBatch(setmealDishes);
         }
+
+        cacheService.evictAll("SetmealCache");
     }
 
     /**
@@ -87,7 +90,6 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     @Transactional
-    @CacheEvict(value = "SetmealCache", allEntries = true)
     public void deleteBatch(List<Long> ids) {
         // 若当前套餐仍在起售，不能删除
         ids.forEach(id -> {
@@ -101,6 +103,8 @@ public class SetmealServiceImpl implements SetmealService {
         setmealMapper.deleteBatchByIds(ids);
         // 删除套餐菜品关系表中的数据
         setmealDishMapper.deleteBySetmealIds(ids);
+
+        cacheService.evictAll("SetmealCache");
     }
 
     /**
@@ -129,7 +133,6 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     @Transactional
-    @CacheEvict(value = "SetmealCache", allEntries = true)
     public void update(SetmealDTO setmealDTO) {
         Setmeal setmeal = new Setmeal();
         BeanUtils.copyProperties(setmealDTO, setmeal);
@@ -150,6 +153,8 @@ public class SetmealServiceImpl implements SetmealService {
             setmealDish.setSetmealId(setmealId);
         });
         setmealDishMapper.insertBatch(setmealDishes);
+
+        cacheService.evictAll("SetmealCache");
     }
 
     /**
@@ -159,7 +164,6 @@ public class SetmealServiceImpl implements SetmealService {
      * @param id
      */
     @Override
-    @CacheEvict(value = "SetmealCache", allEntries = true)
     public void startOrStop(Integer status, Long id) {
         // 若停售套餐中包含停售的菜品，则无法起售
         if (status.equals(StatusConstant.ENABLE)) {
@@ -179,6 +183,8 @@ public class SetmealServiceImpl implements SetmealService {
                 .status(status)
                 .build();
         setmealMapper.update(setmeal);
+
+        cacheService.evictAll("SetmealCache");
     }
 
     /**
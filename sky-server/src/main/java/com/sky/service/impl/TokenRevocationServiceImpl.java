@@ -0,0 +1,171 @@
+package com.sky.service.impl;
+
+import com.sky.constant.JwtClaimsConstant;
+import com.sky.properties.JwtProperties;
+import com.sky.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌注销
+ * 注销记录保存在Redis中，并在每个节点保存一份本地副本，校验令牌时只查询本地副本
+ * 注销时通过Redis频道通知所有节点立即更新本地副本，并定期与Redis全量同步，以防漏收通知
+ */
+@Service
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService, MessageListener {
+    public static final String CHANNEL = "sky:token:revoked";
+
+    //已注销的令牌，令牌id -> 令牌过期时间戳
+    private static final String TOKEN_KEY = "TOKEN_REVOKED";
+    //员工令牌的注销时间，员工id -> 注销时间戳，该时间之前签发的令牌均已注销
+    private static final String EMPLOYEE_KEY = "TOKEN_REVOKED_EMPLOYEE";
+
+    private static final String TYPE_TOKEN = "token";
+    private static final String TYPE_EMPLOYEE = "employee";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private JwtProperties jwtProperties;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, Long> employeeRevokedTimes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("加载令牌注销记录失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 注销令牌
+     *
+     * @param claims
+     */
+    @Override
+    public void revoke(Claims claims) {
+        String tokenId = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (tokenId == null || expiration == null) {
+            log.warn("令牌缺少id或过期时间，无法注销");
+            return;
+        }
+
+        String expireTime = String.valueOf(expiration.getTime());
+        stringRedisTemplate.opsForHash().put(TOKEN_KEY, tokenId, expireTime);
+        revokedTokens.put(tokenId, expiration.getTime());
+        stringRedisTemplate.convertAndSend(CHANNEL, TYPE_TOKEN + ":" + tokenId + ":" + expireTime);
+    }
+
+    /**
+     * 注销员工此前签发的全部令牌
+     *
+     * @param empId
+     */
+    @Override
+    public void revokeEmployee(Long empId) {
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForHash().put(EMPLOYEE_KEY, empId.toString(), String.valueOf(now));
+        employeeRevokedTimes.put(empId, now);
+        stringRedisTemplate.convertAndSend(CHANNEL, TYPE_EMPLOYEE + ":" + empId + ":" + now);
+        log.info("员工{}的令牌已全部注销", empId);
+    }
+
+    /**
+     * 判断令牌是否已注销
+     *
+     * @param claims
+     * @return
+     */
+    @Override
+    public boolean isRevoked(Claims claims) {
+        String tokenId = claims.getId();
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+
+        Object empId = claims.get(JwtClaimsConstant.EMP_ID);
+        if (empId == null || employeeRevokedTimes.isEmpty()) {
+            return false;
+        }
+        Long revokedTime = employeeRevokedTimes.get(Long.valueOf(empId.toString()));
+        if (revokedTime == null) {
+            return false;
+        }
+        // 令牌的签发时间精确到秒，同一秒内签发的令牌也视为已注销
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() <= revokedTime;
+    }
+
+    /**
+     * 收到其他节点的注销通知
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+            if (TYPE_TOKEN.equals(parts[0])) {
+                revokedTokens.put(parts[1], Long.valueOf(parts[2]));
+            } else if (TYPE_EMPLOYEE.equals(parts[0])) {
+                employeeRevokedTimes.merge(Long.valueOf(parts[1]), Long.valueOf(parts[2]), Math::max);
+            }
+        } catch (Exception e) {
+            log.warn("处理令牌注销通知失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每分钟与Redis全量同步一次，并清理已过期的注销记录
+     */
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void sync() {
+        long now = System.currentTimeMillis();
+
+        Map<Object, Object> tokens = stringRedisTemplate.opsForHash().entries(TOKEN_KEY);
+        for (Map.Entry<Object, Object> entry : tokens.entrySet()) {
+            String tokenId = entry.getKey().toString();
+            long expireTime = Long.parseLong(entry.getValue().toString());
+            if (expireTime < now) {
+                // 令牌本身已过期，无需再记录
+                stringRedisTemplate.opsForHash().delete(TOKEN_KEY, tokenId);
+            } else {
+                revokedTokens.put(tokenId, expireTime);
+            }
+        }
+
+        // 注销时间早于一个令牌有效期之前的记录，对应的令牌都已过期
+        long employeeExpireTime = now - jwtProperties.getAdminTtl();
+        Map<Object, Object> employees = stringRedisTemplate.opsForHash().entries(EMPLOYEE_KEY);
+        for (Map.Entry<Object, Object> entry : employees.entrySet()) {
+            String empId = entry.getKey().toString();
+            long revokedTime = Long.parseLong(entry.getValue().toString());
+            if (revokedTime < employeeExpireTime) {
+                stringRedisTemplate.opsForHash().delete(EMPLOYEE_KEY, empId);
+            } else {
+                employeeRevokedTimes.merge(Long.valueOf(empId), revokedTime, Math::max);
+            }
+        }
+
+        revokedTokens.values().removeIf(expireTime -> expireTime < now);
+        employeeRevokedTimes.values().removeIf(revokedTime -> revokedTime < employeeExpireTime);
+    }
+}
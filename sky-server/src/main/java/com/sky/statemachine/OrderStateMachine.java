@@ -0,0 +1,103 @@
+package com.sky.statemachine;
+
+import com.sky.constant.MessageConstant;
+import com.sky.dto.OrdersTransitionDTO;
+import com.sky.entity.Orders;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 订单状态机
+ * 每次流转都是一条带原状态条件的update语句，由影响行数判断是否流转成功，避免并发操作互相覆盖
+ */
+@Component
+@Slf4j
+public class OrderStateMachine {
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    /**
+     * 流转单个订单的状态
+     * 按状态的先后顺序依次尝试每个允许的原状态，每次都是一条带原状态条件的update语句，命中的原状态即流转前的状态
+     * 订单状态只会向后流转，尝试期间订单被并发流转到更靠后的原状态时，后续的尝试仍能命中
+     *
+     * @param transition
+     * @param order      订单id及需要一并修改的字段
+     * @return 流转前的订单状态，流转失败时返回null
+     */
+    public Integer fire(OrderTransition transition, Orders order) {
+        for (Integer fromStatus : transition.getFromStatuses()) {
+            // 除“待付款”外的订单均已支付，需要退款
+            Integer payStatus = transition.isRefund() && !Orders.PENDING_PAYMENT.equals(fromStatus)
+                    ? Orders.REFUND : order.getPayStatus();
+            OrdersTransitionDTO ordersTransitionDTO = OrdersTransitionDTO.builder()
+                    .orders(order)
+                    .fromStatus(fromStatus)
+                    .toStatus(transition.getToStatus())
+                    .payStatus(payStatus)
+                    .build();
+            Integer rows = orderMapper.updateByStatus(ordersTransitionDTO);
+            if (rows != null && rows > 0) {
+                order.setStatus(transition.getToStatus());
+                log.info("订单{}状态流转：{} -> {}", order.getId(), fromStatus, transition.getToStatus());
+                orderStatusCounter.onTransition(fromStatus, transition.getToStatus(), rows);
+                return fromStatus;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 流转单个订单的状态，流转失败时抛出业务异常
+     *
+     * @param transition
+     * @param order
+     * @return 流转前的订单状态
+     */
+    public Integer fireOrThrow(OrderTransition transition, Orders order) {
+        Integer fromStatus = fire(transition, order);
+        if (fromStatus != null) {
+            return fromStatus;
+        }
+
+        // 流转失败时再查询订单，区分订单不存在和订单状态错误
+        if (orderMapper.getById(order.getId()) == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+    }
+
+    /**
+     * 批量流转订单的状态，仅支持单一原状态的流转
+     *
+     * @param transition
+     * @param ids
+     * @param order      需要一并修改的字段
+     * @return 实际流转的订单数量
+     */
+    public int fireBatch(OrderTransition transition, List<Long> ids, Orders order) {
+        if (transition.getFromStatuses().size() != 1) {
+            throw new IllegalArgumentException("批量流转仅支持单一原状态：" + transition);
+        }
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        Integer fromStatus = transition.getFromStatuses().get(0);
+        order.setStatus(transition.getToStatus());
+        Integer rows = orderMapper.updateBatchByStatus(ids, fromStatus, order);
+        if (rows == null || rows == 0) {
+            return 0;
+        }
+
+        orderStatusCounter.onTransition(fromStatus, transition.getToStatus(), rows);
+        return rows;
+    }
+}
@@ -0,0 +1,159 @@
+package com.sky.statemachine;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各状态订单数量的计数器，保存在Redis哈希中
+ * 由订单状态机在每次流转后原子地更新，并由定时任务定期与数据库校准
+ */
+@Component
+@Slf4j
+public class OrderStatusCounter {
+    private static final String KEY = "ORDER_STATUS_COUNT";
+
+    /**
+     * 需要计数的订单状态：待接单、已接单、派送中
+     */
+    private static final List<Integer> TRACKED_STATUSES = Collections.unmodifiableList(
+            Arrays.asList(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS));
+
+    // 计数的版本号，每次更新计数都会加1，校准时据此判断计数在查询数据库期间是否有变化
+    private static final String FIELD_VERSION = "version";
+
+    // 校准时版本号发生变化的最大重试次数
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    /**
+     * 原状态计数减少、新状态计数增加，在同一个脚本中完成以保证原子性
+     * 计数经数据库校准后（ready字段存在）才接受增减；无论是否已校准都会增加版本号，使正在进行的校准放弃写入
+     */
+    private static final DefaultRedisScript<Long> TRANSITION_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hincrby', KEYS[1], 'version', 1) " +
+                    "if redis.call('hexists', KEYS[1], 'ready') == 0 then return 0 end " +
+                    "if ARGV[1] ~= '' then redis.call('hincrby', KEYS[1], ARGV[1], -tonumber(ARGV[3])) end " +
+                    "if ARGV[2] ~= '' then redis.call('hincrby', KEYS[1], ARGV[2], tonumber(ARGV[3])) end " +
+                    "return 1", Long.class);
+
+    /**
+     * 仅当版本号与查询数据库前一致时才写入校准结果，否则查询期间有订单流转，写入会覆盖这些流转
+     * ARGV[1]为查询数据库前的版本号，之后依次为 订单状态、订单数量
+     */
+    private static final DefaultRedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('hget', KEYS[1], 'version') or '0' " +
+                    "if version ~= ARGV[1] then return 0 end " +
+                    "for i = 2, #ARGV, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "redis.call('hset', KEYS[1], 'ready', '1') " +
+                    "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    /**
+     * 记录订单状态流转，若处于事务中，则在事务提交后再更新计数
+     *
+     * @param fromStatus
+     * @param toStatus
+     * @param count      流转的订单数量
+     */
+    public void onTransition(Integer fromStatus, Integer toStatus, long count) {
+        boolean fromTracked = TRACKED_STATUSES.contains(fromStatus);
+        boolean toTracked = TRACKED_STATUSES.contains(toStatus);
+        if (count <= 0 || (!fromTracked && !toTracked)) {
+            return;
+        }
+
+        String from = fromTracked ? fromStatus.toString() : "";
+        String to = toTracked ? toStatus.toString() : "";
+        Runnable increment = () -> {
+            // 订单已流转成功，计数失败不能影响调用方，偏差由定时校准修正
+            try {
+                stringRedisTemplate.execute(TRANSITION_SCRIPT,
+                        Collections.singletonList(KEY), from, to, String.valueOf(count));
+            } catch (Exception e) {
+                log.warn("更新订单状态计数失败：{} -> {}，{}", fromStatus, toStatus, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment.run();
+                }
+            });
+        } else {
+            increment.run();
+        }
+    }
+
+    /**
+     * 查询各状态的订单数量，计数器不存在时先从数据库校准
+     *
+     * @return 订单状态 -> 订单数量
+     */
+    public Map<Integer, Integer> get() {
+        List<Object> fields = new ArrayList<>();
+        for (Integer status : TRACKED_STATUSES) {
+            fields.add(status.toString());
+        }
+
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(KEY, fields);
+        if (values.contains(null)) {
+            return reconcile();
+        }
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < TRACKED_STATUSES.size(); i++) {
+            counts.put(TRACKED_STATUSES.get(i), Math.max(Integer.parseInt(values.get(i).toString()), 0));
+        }
+        return counts;
+    }
+
+    /**
+     * 根据数据库校准各状态的订单数量
+     * 查询数据库期间若有订单流转（版本号变化），则放弃写入并重试，多次重试仍有变化时保留原计数，等待下次校准
+     *
+     * @return 订单状态 -> 订单数量
+     */
+    public Map<Integer, Integer> reconcile() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            Object version = stringRedisTemplate.opsForHash().get(KEY, FIELD_VERSION);
+
+            List<String> args = new ArrayList<>();
+            args.add(version == null ? "0" : version.toString());
+            for (Integer status : TRACKED_STATUSES) {
+                Integer count = orderMapper.countByStatus(status);
+                counts.put(status, count);
+                args.add(status.toString());
+                args.add(count.toString());
+            }
+
+            Long written = stringRedisTemplate.execute(RECONCILE_SCRIPT, Collections.singletonList(KEY), args.toArray());
+            if (written != null && written == 1L) {
+                log.info("订单状态计数已校准：{}", counts);
+                return counts;
+            }
+        }
+
+        log.info("校准期间订单状态计数持续变化，本次不写入：{}", counts);
+        return counts;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sky.statemachine;
+
+import com.sky.entity.Orders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 订单状态流转
+ * 订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+ */
+public enum OrderTransition {
+    // 支付成功
+    PAY(Orders.TO_BE_CONFIRMED, false, Orders.PENDING_PAYMENT),
+    // 商家接单
+    CONFIRM(Orders.CONFIRMED, false, Orders.TO_BE_CONFIRMED),
+    // 商家拒单
+    REJECT(Orders.CANCELLED, true, Orders.TO_BE_CONFIRMED),
+    // 用户取消，仅“待付款”、“待接单”可取消
+    USER_CANCEL(Orders.CANCELLED, true, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED),
+    // 商家取消，已完成或已取消的订单不可取消
+    ADMIN_CANCEL(Orders.CANCELLED, true, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS),
+    // 派送订单
+    DELIVER(Orders.DELIVERY_IN_PROGRESS, false, Orders.CONFIRMED),
+    // 完成订单
+    COMPLETE(Orders.COMPLETED, false, Orders.DELIVERY_IN_PROGRESS),
+    // 支付超时，自动取消
+    TIMEOUT_CANCEL(Orders.CANCELLED, false, Orders.PENDING_PAYMENT),
+    // 派送超时，自动完成
+    AUTO_COMPLETE(Orders.COMPLETED, false, Orders.DELIVERY_IN_PROGRESS);
+
+    /**
+     * 流转后的状态
+     */
+    private final Integer toStatus;
+
+    /**
+     * 已支付的订单流转后是否需要退款
+     */
+    private final boolean refund;
+
+    /**
+     * 允许流转的原状态，按状态的先后顺序排列
+     */
+    private final List<Integer> fromStatuses;
+
+    OrderTransition(Integer toStatus, boolean refund, Integer... fromStatuses) {
+        this.toStatus = toStatus;
+        this.refund = refund;
+        this.fromStatuses = Collections.unmodifiableList(Arrays.asList(fromStatuses));
+    }
+
+    public Integer getToStatus() {
+        return toStatus;
+    }
+
+    public boolean isRefund() {
+        return refund;
+    }
+
+    public List<Integer> getFromStatuses() {
+        return fromStatuses;
+    }
+}
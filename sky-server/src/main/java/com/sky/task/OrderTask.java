@@ -1,7 +1,12 @@
 package com.sky.task;
 
+import com.sky.annotation.JobLock;
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.statemachine.OrderStateMachine;
+import com.sky.statemachine.OrderStatusCounter;
+import com.sky.statemachine.OrderTransition;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,42 +21,129 @@ import java.util.List;
 public class OrderTask {
     @Autowired
     private OrderMapper orderMapper;
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+    @Autowired
+    private OrderProperties orderProperties;
+    // 未开启支付对账时为null，此时不查询支付状态直接取消
+    @Autowired(required = false)
+    private PaymentReconcileTask paymentReconcileTask;
 
     /**
-     * 每分钟处理超时的待付款订单
+     * 每秒从延迟队列中取出已到期的待付款订单，并批量取消
+     * 延迟队列本身保证每个订单只被一个节点取出，因此无需加锁
+     * 定时任务线程池的大小见 spring.task.scheduling.pool.size，其他任务执行期间本任务照常每秒执行
      */
-    @Scheduled(cron = "0 * * * * ?")
-    public void processTimeoutOrder() {
-        log.info("处理超时的待付款订单：{}", new Date());
-        // 下单时间距今小于当前15分钟视为超时
-        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(15);
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.UN_PAID, orderTime);
-
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders order : ordersList) {
-                order.setStatus(Orders.CANCELLED);
-                order.setCancelReason("支付超时，自动取消");
-                order.setCancelTime(LocalDateTime.now());
-                orderMapper.update(order);
-            }
+    @Scheduled(fixedDelay = 1000)
+    public void processDueTimeoutOrder() {
+        List<Long> dueIds = orderTimeoutQueue.pollDue(orderProperties.getTimeoutQueueBatchSize());
+        if (dueIds.isEmpty()) {
+            return;
+        }
+        List<Long> orderIds = filterUnpaid(dueIds);
+        if (orderIds.isEmpty()) {
+            return;
         }
+
+        // 仅取消仍处于“待付款”状态的订单，已支付或已取消的订单不受影响
+        Orders order = Orders.builder()
+                .cancelReason("支付超时，自动取消")
+                .cancelTime(LocalDateTime.now())
+                .build();
+        int rows = orderStateMachine.fireBatch(OrderTransition.TIMEOUT_CANCEL, orderIds, order);
+        log.info("延迟队列取消超时订单：到期{}个，取消{}个", dueIds.size(), rows);
+    }
+
+    /**
+     * 每15分钟兜底处理超时的待付款订单，以防延迟队列丢失数据
+     */
+    @Scheduled(cron = "0 0/15 * * * ?")
+    @JobLock(value = "processTimeoutOrder", leaseSeconds = 600)
+    public int processTimeoutOrder() {
+        log.info("处理超时的待付款订单：{}", new Date());
+        // 下单时间距今超过支付超时时间视为超时
+        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(orderProperties.getPayTimeout());
+        Orders order = Orders.builder()
+                .cancelReason("支付超时，自动取消")
+                .cancelTime(LocalDateTime.now())
+                .build();
+
+        int rows = updateInBatches(OrderTransition.TIMEOUT_CANCEL, orderTime, order);
+        log.info("超时的待付款订单处理完成，共取消{}个", rows);
+        return rows;
     }
 
     /**
-     * 每天凌晨1点处理派送中订单
+     * 每天凌晨1点处理一直处于派送中的订单
      */
     @Scheduled(cron = "0 0 1 * * ?")
-    public void processDeliveryOrder() {
+    @JobLock(value = "processDeliveryOrder", leaseSeconds = 1800)
+    public int processDeliveryOrder() {
         log.info("处理派送中订单：{}", new Date());
+        // 下单时间距今超过60分钟仍在派送中，视为已完成
+        LocalDateTime orderTime = LocalDateTime.now().minusMinutes(60);
+        Orders order = Orders.builder()
+                .deliveryTime(LocalDateTime.now())
+                .build();
 
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.UN_PAID, LocalDateTime.now());
+        int rows = updateInBatches(OrderTransition.AUTO_COMPLETE, orderTime, order);
+        log.info("派送中订单处理完成，共完成{}个", rows);
+        return rows;
+    }
+
+    /**
+     * 每5分钟根据数据库校准各状态的订单数量
+     */
+    @Scheduled(cron = "30 0/5 * * * ?")
+    @JobLock(value = "reconcileOrderStatusCount", leaseSeconds = 120)
+    public void reconcileOrderStatusCount() {
+        orderStatusCounter.reconcile();
+    }
+
+    /**
+     * 按id分批流转满足条件的订单，每批单独提交，避免一次性加载全部订单
+     *
+     * @param transition 订单状态流转
+     * @param orderTime  下单时间上限
+     * @param order      需要一并修改的字段
+     * @return 实际流转的订单数量
+     */
+    private int updateInBatches(OrderTransition transition, LocalDateTime orderTime, Orders order) {
+        Integer fromStatus = transition.getFromStatuses().get(0);
+        int batchSize = orderProperties.getTaskBatchSize();
+        long lastId = 0L;
+        int batches = 0;
+        int total = 0;
+
+        List<Long> ids = orderMapper.getIdsByStatusAndOrderTimeLT(fromStatus, orderTime, lastId, batchSize);
+        while (!ids.isEmpty()) {
+            List<Long> targetIds = transition == OrderTransition.TIMEOUT_CANCEL ? filterUnpaid(ids) : ids;
+            if (!targetIds.isEmpty()) {
+                total += orderStateMachine.fireBatch(transition, targetIds, order);
+            }
+            batches++;
+            log.info("第{}批订单处理完成：本批{}个，累计{}个", batches, ids.size(), total);
 
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders order : ordersList) {
-                order.setStatus(Orders.COMPLETED);
-                order.setDeliveryTime(LocalDateTime.now());
-                orderMapper.update(order);
+            if (ids.size() < batchSize) {
+                break;
             }
+            lastId = ids.get(ids.size() - 1);
+            ids = orderMapper.getIdsByStatusAndOrderTimeLT(fromStatus, orderTime, lastId, batchSize);
         }
+        return total;
+    }
+
+    /**
+     * 取消前向微信支付确认订单仍未支付，支付通知在超时前最后一刻丢失的订单也不会被误取消
+     *
+     * @param orderIds
+     * @return 可以取消的订单id
+     */
+    private List<Long> filterUnpaid(List<Long> orderIds) {
+        return paymentReconcileTask == null ? orderIds : paymentReconcileTask.filterUnpaid(orderIds);
     }
 }
@@ -0,0 +1,70 @@
+package com.sky.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 待付款订单的超时延迟队列，基于Redis有序集合实现
+ * 成员为订单id，分值为订单的超时时间戳（毫秒）
+ */
+@Component
+@Slf4j
+public class OrderTimeoutQueue {
+    private static final String KEY = "ORDER_TIMEOUT_QUEUE";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 登记订单的超时时间
+     *
+     * @param orderId
+     * @param expireTime
+     */
+    public void add(Long orderId, LocalDateTime expireTime) {
+        long score = expireTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        stringRedisTemplate.opsForZSet().add(KEY, orderId.toString(), score);
+    }
+
+    /**
+     * 移除订单，如订单已支付或已取消
+     *
+     * @param orderId
+     */
+    public void remove(Long orderId) {
+        stringRedisTemplate.opsForZSet().remove(KEY, orderId.toString());
+    }
+
+    /**
+     * 取出已到期的订单id
+     * 多个节点同时消费时，只有成功从队列中移除的节点才能获得该订单，保证每个订单只被处理一次
+     *
+     * @param limit 最多取出的数量
+     * @return
+     */
+    public List<Long> pollDue(int limit) {
+        ZSetOperations<String, String> opsForZSet = stringRedisTemplate.opsForZSet();
+        Set<String> members = opsForZSet.rangeByScore(KEY, 0, System.currentTimeMillis(), 0, limit);
+
+        List<Long> orderIds = new ArrayList<>();
+        if (members == null || members.isEmpty()) {
+            return orderIds;
+        }
+        for (String member : members) {
+            Long removed = opsForZSet.remove(KEY, member);
+            if (removed != null && removed > 0) {
+                orderIds.add(Long.valueOf(member));
+            }
+        }
+        return orderIds;
+    }
+}
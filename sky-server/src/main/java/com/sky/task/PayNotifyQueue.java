@@ -0,0 +1,201 @@
+package com.sky.task;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.properties.PayNotifyProperties;
+import com.sky.service.PayNotifyService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 支付通知队列，基于Redis列表实现
+ * 回调接口校验通知后只负责入队并立即响应微信，由固定数量的线程异步处理，失败的通知按退避时间重试
+ * 取出的通知连同租约到期时间放入处理中的有序集合，处理完成后移除；租约到期仍未完成的通知（节点宕机或处理卡住）由任一节点放回队列
+ * 各节点只放回已到期的通知，不会抢走其他节点正在处理的通知；通知处理是幂等的，租约到期后被重复处理也不会产生影响
+ */
+@Component
+@Slf4j
+public class PayNotifyQueue {
+    private static final String QUEUE_KEY = "PAY_NOTIFY_QUEUE";
+    private static final String PROCESSING_KEY = "PAY_NOTIFY_LEASES";
+    private static final String RETRY_KEY = "PAY_NOTIFY_RETRY";
+    private static final String DEAD_KEY = "PAY_NOTIFY_DEAD";
+
+    // 每次最多放回队列的到期重试通知数量
+    private static final int RETRY_BATCH_SIZE = 100;
+
+    /**
+     * 从队列取出一条通知并记录租约到期时间，在同一个脚本中完成以免取出后、记录前宕机导致通知丢失
+     */
+    private static final DefaultRedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local item = redis.call('rpop', KEYS[1]) " +
+                    "if item then redis.call('zadd', KEYS[2], ARGV[1], item) end " +
+                    "return item", String.class);
+
+    /**
+     * 将到期的通知（到期的重试、租约到期的处理中通知）从有序集合移回队列，在同一个脚本中完成以免通知丢失或被多个节点重复移动
+     */
+    private static final DefaultRedisScript<Long> MOVE_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local items = redis.call('zrangebyscore', KEYS[1], 0, ARGV[1], 'limit', 0, tonumber(ARGV[2])) " +
+                    "for _, item in ipairs(items) do " +
+                    "redis.call('zrem', KEYS[1], item) " +
+                    "redis.call('lpush', KEYS[2], item) " +
+                    "end " +
+                    "return #items", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private PayNotifyService payNotifyService;
+    @Autowired
+    private PayNotifyProperties payNotifyProperties;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(payNotifyProperties.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "pay-notify-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < payNotifyProperties.getWorkers(); i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 支付通知入队
+     *
+     * @param transactionId 微信支付交易号
+     * @param outTradeNo    商户平台订单号
+     */
+    public void push(String transactionId, String outTradeNo) {
+        PayNotification notification = new PayNotification(transactionId, outTradeNo, 0, System.currentTimeMillis());
+        stringRedisTemplate.opsForList().leftPush(QUEUE_KEY, JSON.toJSONString(notification));
+    }
+
+    /**
+     * 将到期的重试通知和租约到期的处理中通知放回队列
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void moveDueRetries() {
+        String now = String.valueOf(System.currentTimeMillis());
+        stringRedisTemplate.execute(MOVE_DUE_SCRIPT, Arrays.asList(RETRY_KEY, QUEUE_KEY), now, String.valueOf(RETRY_BATCH_SIZE));
+        Long expired = stringRedisTemplate.execute(MOVE_DUE_SCRIPT, Arrays.asList(PROCESSING_KEY, QUEUE_KEY), now,
+                String.valueOf(RETRY_BATCH_SIZE));
+        if (expired != null && expired > 0) {
+            log.warn("放回租约到期仍未处理完的支付通知{}条", expired);
+        }
+    }
+
+    /**
+     * 处理线程，不使用阻塞命令拉取通知，以免每次拉取都占用一个独立的Redis连接
+     */
+    private void work() {
+        while (running) {
+            try {
+                long leaseExpireTime = System.currentTimeMillis() + payNotifyProperties.getLeaseMillis();
+                String raw = stringRedisTemplate.execute(CLAIM_SCRIPT, Arrays.asList(QUEUE_KEY, PROCESSING_KEY),
+                        String.valueOf(leaseExpireTime));
+                if (raw == null) {
+                    TimeUnit.MILLISECONDS.sleep(payNotifyProperties.getIdleMillis());
+                    continue;
+                }
+                process(raw);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("拉取支付通知失败：{}", e.getMessage());
+                sleepQuietly(payNotifyProperties.getIdleMillis());
+            }
+        }
+    }
+
+    /**
+     * 处理一条已取出的通知，无论成功与否都从处理中移除：失败的按退避时间重试，超过最大次数或无法解析的转入死信队列
+     *
+     * @param raw 队列中的通知
+     */
+    void process(String raw) {
+        PayNotification notification;
+        try {
+            notification = JSON.parseObject(raw, PayNotification.class);
+        } catch (Exception e) {
+            log.error("支付通知无法解析，转入死信队列：{}", raw, e);
+            stringRedisTemplate.opsForList().leftPush(DEAD_KEY, raw);
+            stringRedisTemplate.opsForZSet().remove(PROCESSING_KEY, raw);
+            return;
+        }
+
+        try {
+            payNotifyService.paySuccess(notification.getTransactionId(), notification.getOutTradeNo());
+        } catch (Exception e) {
+            int attempts = notification.getAttempts() + 1;
+            notification.setAttempts(attempts);
+            String next = JSON.toJSONString(notification);
+            if (attempts >= payNotifyProperties.getMaxAttempts()) {
+                log.error("支付通知处理失败{}次，转入死信队列，订单号：{}", attempts, notification.getOutTradeNo(), e);
+                stringRedisTemplate.opsForList().leftPush(DEAD_KEY, next);
+            } else {
+                long backoff = payNotifyProperties.getRetryBackoffMillis() << (attempts - 1);
+                log.warn("支付通知处理失败，{}毫秒后重试，订单号：{}，原因：{}", backoff, notification.getOutTradeNo(), e.getMessage());
+                stringRedisTemplate.opsForZSet().add(RETRY_KEY, next, System.currentTimeMillis() + backoff);
+            }
+        }
+        stringRedisTemplate.opsForZSet().remove(PROCESSING_KEY, raw);
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 队列中的支付通知
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PayNotification {
+        //微信支付交易号
+        private String transactionId;
+
+        //商户平台订单号
+        private String outTradeNo;
+
+        //已处理的次数
+        private int attempts;
+
+        //收到通知的时间戳（毫秒）
+        private long receivedTime;
+    }
+}
@@ -0,0 +1,189 @@
+package com.sky.task;
+
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.util.concurrent.RateLimiter;
+import com.sky.annotation.JobLock;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.properties.PayReconcileProperties;
+import com.sky.service.PayNotifyService;
+import com.sky.utils.WeChatPayUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 支付对账，主动向微信支付查询未收到支付通知的待付款订单
+ * 支付通知丢失时，避免已支付的订单被超时取消；超时取消前也会通过本类再查询一次，覆盖最后一次对账之后才支付的订单
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.pay-reconcile", name = "enabled", havingValue = "true")
+@Slf4j
+public class PaymentReconcileTask {
+    //微信支付订单的交易状态：支付成功
+    private static final String TRADE_STATE_SUCCESS = "SUCCESS";
+    //微信支付的错误码：订单不存在，用户未发起支付
+    private static final String ORDER_NOT_EXIST = "ORDER_NOT_EXIST";
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private WeChatPayUtil weChatPayUtil;
+    @Autowired
+    private PayNotifyService payNotifyService;
+    @Autowired
+    private OrderProperties orderProperties;
+    @Autowired
+    private PayReconcileProperties payReconcileProperties;
+
+    private ExecutorService queryExecutor;
+    private RateLimiter rateLimiter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        queryExecutor = Executors.newFixedThreadPool(payReconcileProperties.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "pay-reconcile-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateLimiter = RateLimiter.create(payReconcileProperties.getPermitsPerSecond());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        queryExecutor.shutdown();
+    }
+
+    /**
+     * 每分钟对账一次，范围为已超过最短等待时间、尚未到支付超时时间的待付款订单
+     */
+    @Scheduled(cron = "15 * * * * ?")
+    @JobLock(value = "reconcilePayment", leaseSeconds = 120)
+    public int reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime beginTime = now.minusMinutes(orderProperties.getPayTimeout());
+        LocalDateTime endTime = now.minusMinutes(payReconcileProperties.getMinAgeMinutes());
+        int batchSize = payReconcileProperties.getBatchSize();
+
+        long lastId = 0L;
+        int checked = 0;
+        int paid = 0;
+        List<Orders> orders = orderMapper.getByStatusAndOrderTimeBetween(Orders.PENDING_PAYMENT, beginTime, endTime, lastId, batchSize);
+        while (!orders.isEmpty()) {
+            paid += reconcileBatch(orders);
+            checked += orders.size();
+
+            if (orders.size() < batchSize) {
+                break;
+            }
+            lastId = orders.get(orders.size() - 1).getId();
+            orders = orderMapper.getByStatusAndOrderTimeBetween(Orders.PENDING_PAYMENT, beginTime, endTime, lastId, batchSize);
+        }
+
+        if (checked > 0) {
+            log.info("支付对账完成：查询{}个订单，补处理已支付订单{}个", checked, paid);
+        }
+        return paid;
+    }
+
+    /**
+     * 超时取消前查询订单的支付状态，已支付的订单按支付通知的幂等流程处理
+     *
+     * @param orderIds 到期的订单id
+     * @return 确认未支付、可以取消的订单id；查询失败的订单不在其中，由兜底的超时处理任务稍后重试
+     */
+    public List<Long> filterUnpaid(List<Long> orderIds) {
+        List<Orders> orders = orderMapper.getByIdsAndStatus(orderIds, Orders.PENDING_PAYMENT);
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> unpaid = Collections.synchronizedList(new ArrayList<>());
+        queryBatch(orders, (order, paid) -> {
+            if (Boolean.FALSE.equals(paid)) {
+                unpaid.add(order.getId());
+            }
+        });
+        if (unpaid.size() < orders.size()) {
+            log.info("超时取消前查询支付状态：待付款{}个，确认未支付{}个", orders.size(), unpaid.size());
+        }
+        return unpaid;
+    }
+
+    /**
+     * 并发查询一批订单的支付状态，查询次数受限流控制
+     *
+     * @param orders
+     * @return 已支付的订单数量
+     */
+    private int reconcileBatch(List<Orders> orders) {
+        AtomicInteger paid = new AtomicInteger();
+        queryBatch(orders, (order, result) -> {
+            if (Boolean.TRUE.equals(result)) {
+                paid.incrementAndGet();
+            }
+        });
+        return paid.get();
+    }
+
+    private void queryBatch(List<Orders> orders, BiConsumer<Orders, Boolean> consumer) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Orders order : orders) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                rateLimiter.acquire();
+                consumer.accept(order, reconcileOrder(order.getNumber()));
+            }, queryExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 查询单个订单，已支付时按支付通知的幂等流程处理
+     *
+     * @param outTradeNo
+     * @return 订单是否已支付，查询或处理失败时返回null
+     */
+    private Boolean reconcileOrder(String outTradeNo) {
+        try {
+            JSONObject result = weChatPayUtil.queryByOutTradeNo(outTradeNo);
+            if (result == null) {
+                return null;
+            }
+            String tradeState = result.getString("trade_state");
+            if (tradeState == null) {
+                // 接口返回错误，除订单不存在外都无法确定支付状态
+                if (ORDER_NOT_EXIST.equals(result.getString("code"))) {
+                    return false;
+                }
+                log.warn("查询订单{}的支付状态失败：{} {}", outTradeNo, result.getString("code"), result.getString("message"));
+                return null;
+            }
+            if (!TRADE_STATE_SUCCESS.equals(tradeState)) {
+                return false;
+            }
+            String transactionId = result.getString("transaction_id");
+            log.info("对账发现已支付订单：{}，微信支付交易号：{}", outTradeNo, transactionId);
+            payNotifyService.paySuccess(transactionId, outTradeNo);
+            return true;
+        } catch (Exception e) {
+            log.warn("查询订单{}的支付状态失败：{}", outTradeNo, e.getMessage());
+            return null;
+        }
+    }
+}
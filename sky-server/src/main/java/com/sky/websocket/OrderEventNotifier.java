@@ -0,0 +1,74 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sky.constant.WebSocketConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+/**
+ * 订单事件推送
+ * 事务提交后在当前线程同步写入事件日志，保证订单状态变更后事件一定已记录；只有Redis广播放到notifyExecutor线程池中异步执行
+ * 写入失败时在notifyExecutor中重试写入，取得事件id后再推送，推送的事件都能在断线重连后补发
+ */
+@Component
+@Slf4j
+public class OrderEventNotifier {
+    @Autowired
+    private WebSocketServer webSocketServer;
+    @Autowired
+    private OrderEventOutbox orderEventOutbox;
+    @Autowired
+    @Qualifier("notifyExecutor")
+    private ThreadPoolTaskExecutor notifyExecutor;
+
+    /**
+     * 订单事件先写入事件日志，再推送给商家，断线的客户端重连后可根据事件id补发
+     * 在事务中调用时，事务提交后才写入和推送，回滚的状态变更不会产生事件
+     *
+     * @param paramMap
+     * @param key      合并key
+     */
+    public void notifyShop(Map<Object, Object> paramMap, String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendAndPush(paramMap, key);
+                }
+            });
+        } else {
+            appendAndPush(paramMap, key);
+        }
+    }
+
+    private void appendAndPush(Map<Object, Object> paramMap, String key) {
+        String payload = JSONObject.toJSONString(paramMap);
+        String eventId = orderEventOutbox.append(WebSocketConstant.GROUP_SHOP, payload);
+        if (eventId != null) {
+            notifyExecutor.execute(() -> push(paramMap, eventId, key));
+            return;
+        }
+        notifyExecutor.execute(() -> push(paramMap, orderEventOutbox.retryAppend(WebSocketConstant.GROUP_SHOP, payload), key));
+    }
+
+    /**
+     * 推送订单事件，未取得事件id时照常推送，但消息中不带事件id
+     *
+     * @param paramMap
+     * @param eventId
+     * @param key
+     */
+    private void push(Map<Object, Object> paramMap, String eventId, String key) {
+        if (eventId != null) {
+            paramMap.put("eventId", eventId);
+        }
+        webSocketServer.sendEvent(WebSocketConstant.GROUP_SHOP, eventId, JSONObject.toJSONString(paramMap), key);
+    }
+}
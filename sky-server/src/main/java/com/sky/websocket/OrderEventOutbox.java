@@ -0,0 +1,166 @@
+package com.sky.websocket;
+
+import com.sky.properties.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单事件日志，基于Redis Stream实现，只追加不修改
+ * 每条推送给管理端的订单事件都先写入日志，客户端断线重连后可从最后收到的事件id继续接收
+ * 写入失败时按 sky.websocket.outbox-append-attempts 重试，失败、重试成功和最终放弃的次数均有统计
+ */
+@Component
+@Slf4j
+public class OrderEventOutbox {
+    private static final String KEY = "ORDER_EVENT_OUTBOX";
+    private static final String FIELD_TARGET = "target";
+    private static final String FIELD_PAYLOAD = "payload";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    // 写入统计
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    /**
+     * 追加事件，只尝试一次
+     *
+     * @param target  接收事件的会话分组
+     * @param payload 事件内容
+     * @return 事件id，写入失败时返回null
+     */
+    public String append(String target, String payload) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_TARGET, target);
+        fields.put(FIELD_PAYLOAD, payload);
+        // 追加的同时近似裁剪（XADD ... MAXLEN ~ n），只保留最近的事件，一次往返完成
+        RedisStreamCommands.XAddOptions options = RedisStreamCommands.XAddOptions
+                .maxlen(webSocketProperties.getOutboxMaxLength())
+                .approximateTrimming(true);
+        try {
+            RecordId recordId = stringRedisTemplate.execute((RedisCallback<RecordId>) connection ->
+                    ((StringRedisConnection) connection).xAdd(StreamRecords.string(fields).withStreamKey(KEY), options));
+            return recordId == null ? null : recordId.getValue();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn("写入订单事件日志失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 重试追加事件，每次重试前的等待时间翻倍
+     * 会阻塞当前线程，只应在异步线程中调用
+     *
+     * @param target
+     * @param payload
+     * @return 事件id，全部重试都失败时返回null，该事件无法在断线重连后补发
+     */
+    public String retryAppend(String target, String payload) {
+        long backoffMillis = webSocketProperties.getOutboxRetryBackoffMillis();
+        for (int attempt = 1; attempt <= webSocketProperties.getOutboxAppendAttempts(); attempt++) {
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            String eventId = append(target, payload);
+            if (eventId != null) {
+                recovered.incrementAndGet();
+                return eventId;
+            }
+            backoffMillis *= 2;
+        }
+        lost.incrementAndGet();
+        log.error("订单事件日志重试写入仍失败，该事件断线重连后无法补发：{}", payload);
+        return null;
+    }
+
+    /**
+     * 查询写入统计
+     *
+     * @return
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("failed", failed.get());
+        metrics.put("recovered", recovered.get());
+        metrics.put("lost", lost.get());
+        return metrics;
+    }
+
+    /**
+     * 查询指定事件之后的事件，按事件id升序排列
+     *
+     * @param lastEventId 客户端最后收到的事件id
+     * @param limit       最多查询的数量
+     * @return
+     */
+    public List<OrderEvent> readAfter(String lastEventId, int limit) {
+        List<OrderEvent> events = new ArrayList<>();
+        // 闭区间查询，多查一条用于跳过客户端已收到的事件
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+                .range(KEY, Range.rightUnbounded(Range.Bound.inclusive(lastEventId)),
+                        RedisZSetCommands.Limit.limit().count(limit + 1));
+        if (records == null) {
+            return events;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            String eventId = record.getId().getValue();
+            if (eventId.equals(lastEventId) || events.size() >= limit) {
+                continue;
+            }
+            Map<Object, Object> fields = record.getValue();
+            events.add(new OrderEvent(eventId, (String) fields.get(FIELD_TARGET), (String) fields.get(FIELD_PAYLOAD)));
+        }
+        return events;
+    }
+
+    /**
+     * 订单事件
+     */
+    public static class OrderEvent {
+        private final String id;
+        private final String target;
+        private final String payload;
+
+        public OrderEvent(String id, String target, String payload) {
+            this.id = id;
+            this.target = target;
+            this.payload = payload;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
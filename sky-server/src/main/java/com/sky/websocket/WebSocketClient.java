@@ -0,0 +1,142 @@
+package com.sky.websocket;
+
+import javax.websocket.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * WebSocket客户端，包含会话对象及其有界的待发送消息队列
+ */
+public class WebSocketClient {
+    private static final int RECENT_EVENT_IDS = 512;
+
+    private final String sid;
+    private final Session session;
+    // 会话所属的分组
+    private final Set<String> groups;
+    private final BlockingQueue<String> outbound;
+    // 是否已有线程在发送该会话的消息，保证同一会话的消息按顺序串行发送
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    // 合并发送时，时间窗口内待合并的消息，合并key -> 消息，相同key的消息只保留最新的一条
+    private final Map<String, String> batch = new LinkedHashMap<>();
+    private long batchSequence;
+    // 是否已安排合并发送
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // 最近已发送的订单事件id，重连时实时推送与补发可能包含同一事件
+    private final Set<String> recentEventIds = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENT_EVENT_IDS;
+        }
+    });
+
+    public WebSocketClient(String sid, Session session, Set<String> groups, int queueCapacity) {
+        this.sid = sid;
+        this.session = session;
+        this.groups = Collections.unmodifiableSet(groups);
+        this.outbound = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public String getSid() {
+        return sid;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public Set<String> getGroups() {
+        return groups;
+    }
+
+    /**
+     * 消息入队，队列已满时返回false
+     *
+     * @param message
+     * @return
+     */
+    public boolean offer(String message) {
+        return outbound.offer(message);
+    }
+
+    public String poll() {
+        return outbound.poll();
+    }
+
+    public boolean hasPending() {
+        return !outbound.isEmpty();
+    }
+
+    /**
+     * 抢占发送权，成功时返回true
+     *
+     * @return
+     */
+    public boolean tryStartSending() {
+        return sending.compareAndSet(false, true);
+    }
+
+    public void finishSending() {
+        sending.set(false);
+    }
+
+    /**
+     * 记录即将发送的订单事件，该事件已发送过时返回false
+     *
+     * @param eventId
+     * @return
+     */
+    public synchronized boolean markEvent(String eventId) {
+        return recentEventIds.add(eventId);
+    }
+
+    /**
+     * 消息加入待合并的批次，key相同的消息会覆盖之前的消息，批次已满时返回false
+     *
+     * @param key      合并key，为null时不与其他消息合并
+     * @param message
+     * @param capacity 批次的最大消息数
+     * @return
+     */
+    public synchronized boolean coalesce(String key, String message, int capacity) {
+        if (key == null) {
+            key = "#" + (++batchSequence);
+        }
+        if (batch.size() >= capacity && !batch.containsKey(key)) {
+            return false;
+        }
+        batch.put(key, message);
+        return true;
+    }
+
+    /**
+     * 取出当前批次的全部消息
+     *
+     * @return
+     */
+    public synchronized List<String> drainBatch() {
+        List<String> messages = new ArrayList<>(batch.values());
+        batch.clear();
+        return messages;
+    }
+
+    /**
+     * 抢占合并发送的调度权，成功时返回true
+     *
+     * @return
+     */
+    public boolean tryScheduleFlush() {
+        return flushScheduled.compareAndSet(false, true);
+    }
+
+    public void finishFlush() {
+        flushScheduled.set(false);
+    }
+}
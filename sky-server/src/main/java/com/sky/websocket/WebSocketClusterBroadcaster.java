@@ -0,0 +1,133 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sky.properties.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket集群广播
+ * 消息只发布一次到Redis频道，各节点订阅后推送给本节点的会话
+ */
+@Component
+@Slf4j
+public class WebSocketClusterBroadcaster implements MessageListener {
+    public static final String CHANNEL = "sky:websocket:broadcast";
+
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private WebSocketSessionManager webSocketSessionManager;
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    // 最近已推送的消息id，防止同一消息重复推送
+    private final Cache<String, Boolean> deliveredIds = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 发布消息，集群中所有节点都会推送给各自属于目标分组的会话
+     *
+     * @param target  接收消息的会话分组，为null时发送给所有会话
+     * @param key     合并key，为null时不合并
+     * @param payload
+     */
+    public void publish(String target, String key, String payload) {
+        publish(target, key, null, payload);
+    }
+
+    /**
+     * 发布订单事件，各节点按事件id去重后推送
+     *
+     * @param target  接收消息的会话分组，为null时发送给所有会话
+     * @param key     合并key，为null时不合并
+     * @param eventId 订单事件id，为null时不去重
+     * @param payload
+     */
+    public void publish(String target, String key, String eventId, String payload) {
+        WebSocketEnvelope envelope = WebSocketEnvelope.builder()
+                .id(UUID.randomUUID().toString())
+                .origin(NODE)
+                .target(target)
+                .key(key)
+                .eventId(eventId)
+                .payload(payload)
+                .build();
+
+        if (!webSocketProperties.isClusterEnabled()) {
+            deliver(envelope);
+            return;
+        }
+
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, JSON.toJSONString(envelope));
+        } catch (Exception e) {
+            // Redis不可用时，至少保证本节点的会话能收到消息
+            log.warn("发布WebSocket消息失败，仅推送本节点：{}", e.getMessage());
+            deliver(envelope);
+        }
+    }
+
+    /**
+     * 收到Redis频道中的消息
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            deliver(parse(message.getBody()));
+        } catch (Exception e) {
+            log.warn("处理WebSocket广播消息失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 解析Redis频道中的消息
+     *
+     * @param body
+     * @return
+     */
+    static WebSocketEnvelope parse(byte[] body) {
+        return JSON.parseObject(new String(body, StandardCharsets.UTF_8), WebSocketEnvelope.class);
+    }
+
+    /**
+     * 记录消息id，首次出现时返回true
+     * 本节点发布失败后已直接推送的消息，仍可能经Redis频道再次到达
+     *
+     * @param id
+     * @return
+     */
+    boolean markDelivered(String id) {
+        return deliveredIds.asMap().putIfAbsent(id, Boolean.TRUE) == null;
+    }
+
+    private void deliver(WebSocketEnvelope envelope) {
+        if (!markDelivered(envelope.getId())) {
+            log.debug("忽略重复的WebSocket消息：{}", envelope.getId());
+            return;
+        }
+        if (envelope.getTarget() == null) {
+            webSocketSessionManager.broadcast(envelope.getPayload(), envelope.getKey());
+        } else {
+            webSocketSessionManager.sendToGroup(envelope.getTarget(), envelope.getPayload(), envelope.getKey(), envelope.getEventId());
+        }
+    }
+}
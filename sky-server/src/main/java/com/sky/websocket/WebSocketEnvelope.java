@@ -0,0 +1,35 @@
+package com.sky.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 在集群各节点间广播的WebSocket消息
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketEnvelope implements Serializable {
+    //消息id，用于去重
+    private String id;
+
+    //发布消息的节点
+    private String origin;
+
+    //接收消息的会话分组
+    private String target;
+
+    //合并key，合并发送时同一窗口内key相同的消息只发送最新的一条
+    private String key;
+
+    //订单事件id，同一会话的实时推送和断线补发按该id去重，非订单事件为null
+    private String eventId;
+
+    //推送给客户端的消息内容
+    private String payload;
+}
@@ -1,33 +1,55 @@
 package com.sky.websocket;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.constant.WebSocketConstant;
+import com.sky.properties.WebSocketProperties;
+import com.sky.utils.SpringUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import javax.websocket.CloseReason;
 import javax.websocket.OnClose;
+import javax.websocket.OnError;
 import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 /**
  * WebSocket服务
  */
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
 
-    //存放会话对象
-    private static Map<String, Session> sessionMap = new HashMap();
-
     /**
      * 连接建立成功调用的方法
+     * 携带连接凭证（ticket参数）的会话按凭证中的员工角色加入分组，凭证无效时直接关闭连接
+     * 未携带凭证的旧版管理端：sky.websocket.auth-required 关闭时按原方式加入商家分组，开启后直接关闭连接
+     * 携带最后收到的事件id（lastEventId参数）时，补发断线期间的订单事件
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        Set<String> groups = resolveGroups(session, sid);
+        if (groups == null) {
+            closeQuietly(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "unauthorized"));
+            return;
+        }
+
+        log.info("客户端：{}建立连接，分组：{}", sid, groups);
+        sessionManager().register(sid, session, groups);
+
+        // 先注册再读取事件日志，读取期间产生的事件不会遗漏，与实时推送重复的事件按事件id去重
+        String lastEventId = getParameter(session, "lastEventId");
+        if (lastEventId != null) {
+            replay(sid, groups, lastEventId);
+        }
     }
 
     /**
@@ -37,7 +59,7 @@ public class WebSocketServer {
      */
     @OnMessage
     public void onMessage(String message, @PathParam("sid") String sid) {
-        System.out.println("收到来自客户端：" + sid + "的信息:" + message);
+        log.info("收到来自客户端：{}的信息:{}", sid, message);
     }
 
     /**
@@ -46,26 +68,147 @@ public class WebSocketServer {
      * @param sid
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+        sessionManager().unregister(sid, session);
+    }
+
+    /**
+     * 连接异常调用的方法
+     *
+     * @param sid
+     */
+    @OnError
+    public void onError(Session session, Throwable error, @PathParam("sid") String sid) {
+        log.warn("连接异常:{}，{}", sid, error.getMessage());
+        sessionManager().unregister(sid, session);
     }
 
     /**
-     * 群发
+     * 群发，消息经Redis广播到集群所有节点后异步发送，不会阻塞调用方
      *
      * @param message
      */
     public void sendToAllClient(String message) {
-        Collection<Session> sessions = sessionMap.values();
-        for (Session session : sessions) {
-            try {
-                //服务器向客户端发送消息
-                session.getBasicRemote().sendText(message);
-            } catch (Exception e) {
-                e.printStackTrace();
+        SpringUtil.getBean(WebSocketClusterBroadcaster.class).publish(null, null, message);
+    }
+
+    /**
+     * 向指定分组的客户端发送消息，同样经Redis广播后异步发送
+     *
+     * @param group
+     * @param message
+     */
+    public void sendToGroup(String group, String message) {
+        sendToGroup(group, message, null);
+    }
+
+    /**
+     * 向指定分组的客户端发送消息，开启合并发送时，同一窗口内合并key相同的消息只发送最新的一条
+     *
+     * @param group
+     * @param message
+     * @param key     合并key
+     */
+    public void sendToGroup(String group, String message, String key) {
+        SpringUtil.getBean(WebSocketClusterBroadcaster.class).publish(group, key, message);
+    }
+
+    /**
+     * 向指定分组的客户端推送订单事件，同一会话按事件id去重，不会与断线补发重复
+     *
+     * @param group
+     * @param eventId 订单事件id，为null时不去重
+     * @param message
+     * @param key     合并key
+     */
+    public void sendEvent(String group, String eventId, String message, String key) {
+        SpringUtil.getBean(WebSocketClusterBroadcaster.class).publish(group, key, eventId, message);
+    }
+
+    /**
+     * 根据连接凭证决定会话加入的分组
+     *
+     * @param session
+     * @param sid
+     * @return 会话加入的分组，不允许连接时返回null
+     */
+    private static Set<String> resolveGroups(Session session, String sid) {
+        String ticket = getParameter(session, "ticket");
+        if (ticket == null) {
+            if (SpringUtil.getBean(WebSocketProperties.class).isAuthRequired()) {
+                log.warn("客户端：{}未携带连接凭证，关闭连接", sid);
+                return null;
+            }
+            log.warn("客户端：{}未携带连接凭证，按旧版协议加入商家分组", sid);
+            return Collections.singleton(WebSocketConstant.GROUP_SHOP);
+        }
+
+        WebSocketTicketService ticketService = SpringUtil.getBean(WebSocketTicketService.class);
+        WebSocketTicketService.Ticket claims;
+        try {
+            claims = ticketService.redeem(ticket);
+        } catch (Exception e) {
+            log.warn("客户端：{}校验连接凭证失败：{}", sid, e.getMessage());
+            return null;
+        }
+        if (claims == null) {
+            log.warn("客户端：{}的连接凭证无效或已使用，关闭连接", sid);
+            return null;
+        }
+        log.info("客户端：{}为员工{}，角色：{}", sid, claims.getEmpId(), claims.getRole());
+        return ticketService.groupsOf(claims);
+    }
+
+    /**
+     * 补发指定事件之后、属于会话所在分组的订单事件
+     *
+     * @param sid
+     * @param groups
+     * @param lastEventId
+     */
+    private static void replay(String sid, Set<String> groups, String lastEventId) {
+        try {
+            int limit = SpringUtil.getBean(WebSocketProperties.class).getReplayLimit();
+            List<OrderEventOutbox.OrderEvent> events = SpringUtil.getBean(OrderEventOutbox.class).readAfter(lastEventId, limit);
+            int count = 0;
+            for (OrderEventOutbox.OrderEvent event : events) {
+                if (event.getTarget() != null && !groups.contains(event.getTarget())) {
+                    continue;
+                }
+                JSONObject message = JSON.parseObject(event.getPayload());
+                message.put("eventId", event.getId());
+                sessionManager().sendToSession(sid, message.toJSONString(), event.getId());
+                count++;
             }
+            log.info("客户端：{}从事件{}之后补发{}条订单事件", sid, lastEventId, count);
+        } catch (Exception e) {
+            log.warn("客户端：{}补发订单事件失败：{}", sid, e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Session session, CloseReason reason) {
+        try {
+            session.close(reason);
+        } catch (IOException e) {
+            log.warn("关闭WebSocket连接失败：{}", e.getMessage());
         }
     }
 
+    private static String getParameter(Session session, String name) {
+        List<String> values = session.getRequestParameterMap().get(name);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.get(0);
+    }
+
+    /**
+     * 每个连接都会创建新的端点对象，无法注入Spring的Bean，因此从容器中获取会话管理对象
+     *
+     * @return
+     */
+    private static WebSocketSessionManager sessionManager() {
+        return SpringUtil.getBean(WebSocketSessionManager.class);
+    }
 }
@@ -0,0 +1,339 @@
+package com.sky.websocket;
+
+import com.sky.properties.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.websocket.Session;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket会话管理
+ * 消息先进入各会话的有界队列，再通过异步发送逐条发出，调用方和其他会话都不会被慢客户端阻塞
+ * 每个会话同一时刻最多只有一条消息在发送，发送超时或失败的会话直接移除
+ * 开启合并发送时，消息先在时间窗口内合并，窗口结束后作为一个JSON数组进入发送队列
+ */
+@Component
+@Slf4j
+public class WebSocketSessionManager {
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    //存放客户端，sid -> 客户端
+    private final Map<String, WebSocketClient> clients = new ConcurrentHashMap<>();
+
+    //分组索引，分组 -> sid集合
+    private final Map<String, Set<String>> groupIndex = new ConcurrentHashMap<>();
+
+    private ExecutorService sendExecutor;
+
+    // 合并发送的定时器，仅在开启合并发送时创建
+    private ScheduledExecutorService batchScheduler;
+
+    // 投递统计
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 发送线程只负责发起异步发送，不等待发送完成；每个会话同一时刻最多只有一个发送任务，因此任务队列的长度不会超过会话数
+        sendExecutor = new ThreadPoolExecutor(webSocketProperties.getSendThreads(), webSocketProperties.getSendThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "ws-send-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (webSocketProperties.isBatchEnabled()) {
+            batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ws-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (batchScheduler != null) {
+            batchScheduler.shutdown();
+        }
+        sendExecutor.shutdown();
+    }
+
+    /**
+     * 登记会话
+     *
+     * @param sid
+     * @param session
+     * @param groups  会话所属的分组
+     */
+    public void register(String sid, Session session, Set<String> groups) {
+        // 异步发送超过该时间仍未完成，视为慢客户端
+        session.getAsyncRemote().setSendTimeout(webSocketProperties.getSendTimeoutMillis());
+        WebSocketClient client = new WebSocketClient(sid, session, groups, webSocketProperties.getQueueCapacity());
+        WebSocketClient previous = clients.put(sid, client);
+        if (previous != null) {
+            removeFromGroups(previous);
+            if (previous.getSession() != session) {
+                closeQuietly(previous);
+            }
+        }
+        addToGroups(client);
+    }
+
+    /**
+     * 移除会话，仅当登记的仍是该会话时才移除
+     *
+     * @param sid
+     * @param session
+     */
+    public void unregister(String sid, Session session) {
+        WebSocketClient client = clients.get(sid);
+        if (client != null && client.getSession() == session && clients.remove(sid, client)) {
+            removeFromGroups(client);
+        }
+    }
+
+    /**
+     * 群发，仅将消息放入各会话的发送队列，不等待发送完成
+     *
+     * @param message
+     * @param key     合并key，合并发送时同一窗口内key相同的消息只发送最新的一条，为null时不合并
+     */
+    public void broadcast(String message, String key) {
+        for (WebSocketClient client : clients.values()) {
+            dispatch(client, message, key);
+        }
+    }
+
+    /**
+     * 向指定分组的会话发送消息，仅将消息放入发送队列，不等待发送完成
+     *
+     * @param group
+     * @param message
+     * @param key     合并key，合并发送时同一窗口内key相同的消息只发送最新的一条，为null时不合并
+     */
+    public void sendToGroup(String group, String message, String key) {
+        sendToGroup(group, message, key, null);
+    }
+
+    /**
+     * 向指定分组的会话发送订单事件，已向某会话发送过的事件不再重复发送
+     *
+     * @param group
+     * @param message
+     * @param key     合并key，合并发送时同一窗口内key相同的消息只发送最新的一条，为null时不合并
+     * @param eventId 订单事件id，为null时不去重
+     */
+    public void sendToGroup(String group, String message, String key, String eventId) {
+        Set<String> sids = groupIndex.get(group);
+        if (sids == null) {
+            return;
+        }
+        for (String sid : sids) {
+            WebSocketClient client = clients.get(sid);
+            if (client != null && client.getGroups().contains(group) && (eventId == null || client.markEvent(eventId))) {
+                dispatch(client, message, key);
+            }
+        }
+    }
+
+    /**
+     * 向指定会话发送消息，仅将消息放入发送队列，不等待发送完成
+     *
+     * @param sid
+     * @param message
+     * @param eventId 订单事件id，该会话已收到过时不再发送，为null时不去重
+     */
+    public void sendToSession(String sid, String message, String eventId) {
+        WebSocketClient client = clients.get(sid);
+        if (client != null && (eventId == null || client.markEvent(eventId))) {
+            dispatch(client, message, null);
+        }
+    }
+
+    /**
+     * 查询投递统计
+     *
+     * @return
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("sessions", (long) clients.size());
+        metrics.put("groups", (long) groupIndex.size());
+        metrics.put("sent", sent.get());
+        metrics.put("failed", failed.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("evicted", evicted.get());
+        metrics.put("batches", batches.get());
+        return metrics;
+    }
+
+    private void dispatch(WebSocketClient client, String message, String key) {
+        if (batchScheduler == null) {
+            enqueue(client, message);
+            return;
+        }
+
+        if (!client.coalesce(key, message, webSocketProperties.getQueueCapacity())) {
+            dropped.incrementAndGet();
+            evict(client, "待合并消息已满");
+            return;
+        }
+        if (client.tryScheduleFlush()) {
+            try {
+                batchScheduler.schedule(() -> flush(client), webSocketProperties.getBatchWindowMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                client.finishFlush();
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 时间窗口结束，将窗口内的消息合并为一个JSON数组放入发送队列
+     *
+     * @param client
+     */
+    private void flush(WebSocketClient client) {
+        // 先释放调度权再取出消息，之后入队的消息会安排下一次发送
+        client.finishFlush();
+        List<String> messages = client.drainBatch();
+        if (messages.isEmpty()) {
+            return;
+        }
+        batches.incrementAndGet();
+        enqueue(client, "[" + String.join(",", messages) + "]");
+    }
+
+    private void enqueue(WebSocketClient client, String message) {
+        if (!client.getSession().isOpen()) {
+            evict(client, "连接已关闭");
+            return;
+        }
+
+        // 发送队列已满，说明客户端接收过慢，直接移除
+        if (!client.offer(message)) {
+            dropped.incrementAndGet();
+            evict(client, "发送队列已满");
+            return;
+        }
+
+        if (client.tryStartSending()) {
+            scheduleSend(client);
+        }
+    }
+
+    /**
+     * 安排发送会话队列中的下一条消息
+     * 应用关闭时发送线程池已停止，此时直接丢弃，不向调用方（可能是容器的I/O线程）抛出异常
+     *
+     * @param client
+     */
+    private void scheduleSend(WebSocketClient client) {
+        try {
+            sendExecutor.execute(() -> sendNext(client));
+        } catch (RejectedExecutionException e) {
+            client.finishSending();
+            dropped.incrementAndGet();
+            log.debug("发送线程池已关闭，丢弃WebSocket客户端{}的待发送消息", client.getSid());
+        }
+    }
+
+    /**
+     * 异步发送会话队列中的下一条消息，发送完成后再发送下一条，保证同一会话的消息按顺序发送
+     * 发送线程不等待发送完成，慢客户端只会占用自己的发送队列
+     *
+     * @param client
+     */
+    private void sendNext(WebSocketClient client) {
+        String message = client.poll();
+        if (message == null) {
+            client.finishSending();
+            // 释放发送权后若又有新消息入队，则重新调度发送
+            if (client.hasPending() && client.tryStartSending()) {
+                scheduleSend(client);
+            }
+            return;
+        }
+
+        try {
+            //服务器向客户端发送消息
+            client.getSession().getAsyncRemote().sendText(message, result -> {
+                if (result.isOK()) {
+                    sent.incrementAndGet();
+                    scheduleSend(client);
+                    return;
+                }
+                // 发送超时（send-timeout-millis）或连接异常
+                failed.incrementAndGet();
+                client.finishSending();
+                Throwable e = result.getException();
+                evict(client, e == null ? "发送失败" : e.getClass().getSimpleName() + "：" + e.getMessage());
+            });
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            client.finishSending();
+            evict(client, e.getMessage());
+        }
+    }
+
+    private void evict(WebSocketClient client, String reason) {
+        if (clients.remove(client.getSid(), client)) {
+            removeFromGroups(client);
+            evicted.incrementAndGet();
+            log.warn("移除WebSocket客户端：{}，原因：{}", client.getSid(), reason);
+            closeQuietly(client);
+        }
+    }
+
+    private void addToGroups(WebSocketClient client) {
+        for (String group : client.getGroups()) {
+            groupIndex.compute(group, (key, sids) -> {
+                if (sids == null) {
+                    sids = ConcurrentHashMap.newKeySet();
+                }
+                sids.add(client.getSid());
+                return sids;
+            });
+        }
+    }
+
+    private void removeFromGroups(WebSocketClient client) {
+        for (String group : client.getGroups()) {
+            groupIndex.computeIfPresent(group, (key, sids) -> {
+                sids.remove(client.getSid());
+                return sids.isEmpty() ? null : sids;
+            });
+        }
+    }
+
+    private void closeQuietly(WebSocketClient client) {
+        try {
+            client.getSession().close();
+        } catch (Exception e) {
+            log.debug("关闭WebSocket会话失败：{}", e.getMessage());
+        }
+    }
+}
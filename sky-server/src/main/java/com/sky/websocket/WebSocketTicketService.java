@@ -0,0 +1,90 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.constant.WebSocketConstant;
+import com.sky.entity.Employee;
+import com.sky.properties.WebSocketProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket连接凭证
+ * 管理端先凭员工令牌换取一个短期、一次性的凭证，再用凭证建立连接；连接地址中不出现员工令牌，访问日志中的凭证已失效
+ * 凭证中记录员工id和角色，建立连接时据此决定会话加入的分组
+ */
+@Component
+@Slf4j
+public class WebSocketTicketService {
+    private static final String KEY_PREFIX = "WS_TICKET::";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    /**
+     * 为员工签发连接凭证
+     *
+     * @param employee
+     * @return 凭证
+     */
+    public String issue(Employee employee) {
+        String ticket = UUID.randomUUID().toString().replace("-", "");
+        Ticket value = new Ticket(employee.getId(), employee.getRole());
+        stringRedisTemplate.opsForValue().set(KEY_PREFIX + ticket, JSON.toJSONString(value),
+                webSocketProperties.getTicketTtlSeconds(), TimeUnit.SECONDS);
+        return ticket;
+    }
+
+    /**
+     * 使用连接凭证，每个凭证只能成功使用一次
+     *
+     * @param ticket
+     * @return 凭证中的员工信息，凭证不存在、已过期或已使用时返回null
+     */
+    public Ticket redeem(String ticket) {
+        String key = KEY_PREFIX + ticket;
+        String value = stringRedisTemplate.opsForValue().get(key);
+        // 只有删除成功的一方可以使用，同一凭证并发建立的连接只有一个成功
+        if (value == null || !Boolean.TRUE.equals(stringRedisTemplate.delete(key))) {
+            return null;
+        }
+        return JSON.parseObject(value, Ticket.class);
+    }
+
+    /**
+     * 根据凭证中的员工角色决定会话加入的分组
+     * 每个会话加入所属角色的分组；角色需要接收来单提醒时，再加入商家分组
+     *
+     * @param ticket
+     * @return
+     */
+    public Set<String> groupsOf(Ticket ticket) {
+        Set<String> groups = new HashSet<>();
+        if (ticket.getRole() != null) {
+            groups.add(WebSocketConstant.GROUP_ROLE_PREFIX + ticket.getRole());
+            if (webSocketProperties.getOrderAlertRoles().contains(ticket.getRole())) {
+                groups.add(WebSocketConstant.GROUP_SHOP);
+            }
+        }
+        return groups;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Ticket {
+        private Long empId;
+        private String role;
+    }
+}
@@ -0,0 +1,153 @@
+package com.sky.aspect;
+
+import com.sky.annotation.AutoFill;
+import com.sky.constant.AutoFillConstant;
+import com.sky.context.BaseContext;
+import com.sky.entity.Employee;
+import com.sky.enumeration.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公共字段自动填充的开销，插入操作填充全部四个字段
+ * legacy：每次调用都通过getDeclaredMethod查找赋值方法并反射调用，并记录一条INFO日志
+ * cached：AutoFillAspect当前的实现，每个实体类只查找一次，通过方法句柄赋值
+ * 运行main方法，或 mvn -pl sky-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.sky.aspect.AutoFillBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@Slf4j
+public class AutoFillBenchmark {
+    private AutoFillAspect aspect;
+    private AutoFill autoFill;
+    private Employee employee;
+    private JoinPoint joinPoint;
+
+    @Setup
+    public void setup() throws Exception {
+        aspect = new AutoFillAspect();
+        autoFill = Mapper.class.getMethod("insert", Employee.class).getAnnotation(AutoFill.class);
+        employee = new Employee();
+        joinPoint = new ArgsJoinPoint(new Object[]{employee});
+        BaseContext.setCurrentId(1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BaseContext.removeCurrentId();
+    }
+
+    @Benchmark
+    public Employee legacy() throws Exception {
+        log.info("开始进行公共字段的自动填充");
+        LocalDateTime now = LocalDateTime.now();
+        Long currentId = BaseContext.getCurrentId();
+        Method setCreateTime = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+        Method setUpdateTime = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+        Method setCreateUser = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
+        Method setUpdateUser = employee.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+        setCreateTime.invoke(employee, now);
+        setUpdateTime.invoke(employee, now);
+        setCreateUser.invoke(employee, currentId);
+        setUpdateUser.invoke(employee, currentId);
+        return employee;
+    }
+
+    @Benchmark
+    public Employee cached() {
+        aspect.setGlobalField(joinPoint, autoFill);
+        return employee;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AutoFillBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * 提供@AutoFill注解实例
+     */
+    public interface Mapper {
+        @AutoFill(OperationType.INSERT)
+        void insert(Employee employee);
+    }
+
+    /**
+     * 只提供方法参数的连接点，切面只会读取参数
+     */
+    private static class ArgsJoinPoint implements JoinPoint {
+        private final Object[] args;
+
+        ArgsJoinPoint(Object[] args) {
+            this.args = args;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return args;
+        }
+
+        @Override
+        public String toShortString() {
+            return toString();
+        }
+
+        @Override
+        public String toLongString() {
+            return toString();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Signature getSignature() {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return JoinPoint.METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+}
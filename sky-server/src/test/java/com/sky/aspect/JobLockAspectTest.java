@@ -0,0 +1,107 @@
+package com.sky.aspect;
+
+import com.sky.annotation.JobLock;
+import com.sky.service.JobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobLockAspectTest {
+    private ValueOperations<String, String> valueOperations;
+    private StringRedisTemplate stringRedisTemplate;
+    private JobService jobService;
+    private Jobs target;
+    private Jobs jobs;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        valueOperations = mock(ValueOperations.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        jobService = mock(JobService.class);
+
+        JobLockAspect aspect = new JobLockAspect();
+        ReflectionTestUtils.setField(aspect, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(aspect, "jobService", jobService);
+
+        target = new Jobs();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        jobs = factory.getProxy();
+    }
+
+    @Test
+    void returnsPrimitiveDefaultWhenLeaseIsHeldByAnotherNode() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.SECONDS)))
+                .thenReturn(false);
+
+        assertEquals(0, jobs.count());
+        assertEquals(0L, jobs.total());
+        assertNull(jobs.name());
+        jobs.run();
+
+        assertEquals(0, target.invocations.get());
+        verify(jobService, never()).recordRun(anyString(), anyString(), any(), anyLong(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runsJobAndRecordsRowsWhenLeaseIsAcquired() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+
+        assertEquals(42, jobs.count());
+
+        assertEquals(1, target.invocations.get());
+        verify(jobService).recordRun(eq("count"), anyString(), any(), anyLong(), eq(42L), eq(true));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), ArgumentMatchers.<String>anyList(), any(), any());
+    }
+
+    public static class Jobs {
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @JobLock("count")
+        public int count() {
+            invocations.incrementAndGet();
+            return 42;
+        }
+
+        @JobLock("total")
+        public long total() {
+            invocations.incrementAndGet();
+            return 1L;
+        }
+
+        @JobLock("name")
+        public String name() {
+            invocations.incrementAndGet();
+            return "name";
+        }
+
+        @JobLock("run")
+        public void run() {
+            invocations.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.sky.config;
+
+import com.sky.properties.LoginProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 员工登录时一次密码比对的耗时，用于选择 sky.login.bcrypt-strength
+ * BCrypt的强度每加1耗时翻倍，登录接口的响应时间和单核每秒可处理的登录次数都由它决定；md5为升级前的比对方式
+ * 运行main方法，或 mvn -pl sky-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.sky.config.PasswordEncoderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "123456";
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+    private byte[] md5Hash;
+
+    @Setup
+    public void setup() {
+        LoginProperties loginProperties = new LoginProperties();
+        loginProperties.setBcryptStrength(strength);
+        passwordEncoder = new PasswordEncoderConfiguration().passwordEncoder(loginProperties);
+        hash = passwordEncoder.encode(PASSWORD);
+        md5Hash = DigestUtils.md5DigestAsHex(PASSWORD.getBytes(StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean bcrypt() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean md5() {
+        byte[] md5 = DigestUtils.md5DigestAsHex(PASSWORD.getBytes(StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(md5, md5Hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PasswordEncoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
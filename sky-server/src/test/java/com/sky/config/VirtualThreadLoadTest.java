@@ -0,0 +1,192 @@
+package com.sky.config;
+
+import com.sky.context.BaseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tomcat请求处理线程的压测，在固定的并发请求数下对比固定大小的线程池和虚拟线程的吞吐量
+ * 只衡量Tomcat的线程模型：请求由一个固定休眠的模拟接口处理，代表等待远程HTTP调用的时间，不经过下单、微信登录、支付等真实接口及其数据库和Redis访问
+ * 校验：请求内BaseContext中的用户id不串号；线程池的吞吐量不超过线程数决定的上限；虚拟线程的吞吐量不受该上限限制
+ * 吞吐量通过TestReporter输出到测试报告
+ * 虚拟线程部分需要Java 21（-P java21），更低版本跳过
+ * 默认不执行，运行方式：mvn -pl sky-server test -Dtest=VirtualThreadLoadTest -DloadTest=true
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+class VirtualThreadLoadTest {
+    // 同时发出请求的客户端数量
+    private static final int CLIENTS = 400;
+    // 每个客户端发出的请求数
+    private static final int REQUESTS_PER_CLIENT = 20;
+    // 模拟的远程调用耗时（毫秒）
+    private static final long IO_MILLIS = 50;
+    // 对比的线程池大小
+    private static final int SMALL_POOL = 50;
+    private static final int LARGE_POOL = 200;
+
+    @Test
+    void threadPoolThroughputIsBoundedByMaxThreads(TestReporter testReporter) throws Exception {
+        double small = run(threadPool(SMALL_POOL)).perSecond();
+        double large = run(threadPool(LARGE_POOL)).perSecond();
+        report(testReporter, "threadPool" + SMALL_POOL, small);
+        report(testReporter, "threadPool" + LARGE_POOL, large);
+
+        // 每个线程每秒最多处理 1000 / IO_MILLIS 个请求，留10%的计时误差
+        assertTrue(small <= bound(SMALL_POOL) * 1.1, "线程池吞吐量超过线程数决定的上限");
+        assertTrue(large > small * 1.5, "增加线程数后吞吐量没有明显提升，压测瓶颈不在请求处理线程");
+    }
+
+    @Test
+    void virtualThreadsAreNotBoundedByPoolSize(TestReporter testReporter) throws Exception {
+        assumeTrue(supportsVirtualThreads(), "当前Java版本不支持虚拟线程");
+        TomcatServletWebServerFactory factory = factory();
+        factory.addProtocolHandlerCustomizers(new VirtualThreadConfiguration().virtualThreadExecutorCustomizer());
+        double virtual = run(factory).perSecond();
+        report(testReporter, "virtualThreads", virtual);
+
+        assertTrue(virtual > bound(LARGE_POOL), "虚拟线程的吞吐量未超过" + LARGE_POOL + "个线程的线程池上限");
+    }
+
+    private TomcatServletWebServerFactory threadPool(int maxThreads) {
+        TomcatServletWebServerFactory factory = factory();
+        factory.addConnectorCustomizers(connector -> connector.setProperty("maxThreads", String.valueOf(maxThreads)));
+        return factory;
+    }
+
+    /**
+     * 指定线程数的线程池每秒最多能处理的请求数
+     */
+    private double bound(int threads) {
+        return threads * 1000.0 / IO_MILLIS;
+    }
+
+    private TomcatServletWebServerFactory factory() {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        factory.addInitializers(servletContext -> servletContext.addServlet("io", new IoServlet()).addMapping("/io"));
+        return factory;
+    }
+
+    private Result run(TomcatServletWebServerFactory factory) throws Exception {
+        WebServer webServer = factory.getWebServer();
+        webServer.start();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            String url = "http://127.0.0.1:" + webServer.getPort() + "/io?userId=";
+            // 预热
+            for (int i = 0; i < 20; i++) {
+                get(url + i);
+            }
+
+            AtomicInteger mismatches = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < CLIENTS; c++) {
+                long userId = c;
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        if (!String.valueOf(userId).equals(get(url + userId))) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            assertEquals(0, mismatches.get(), "请求内的用户id串号");
+            return new Result(CLIENTS * REQUESTS_PER_CLIENT, elapsed);
+        } finally {
+            clients.shutdownNow();
+            webServer.stop();
+        }
+    }
+
+    private String get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try (InputStream input = connection.getInputStream()) {
+            byte[] buffer = new byte[64];
+            int length = 0;
+            int read;
+            while ((read = input.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            return new String(buffer, 0, length);
+        }
+    }
+
+    private void report(TestReporter testReporter, String mode, double perSecond) {
+        Map<String, String> report = new HashMap<>();
+        report.put("mode", mode);
+        report.put("requests", String.valueOf(CLIENTS * REQUESTS_PER_CLIENT));
+        report.put("requestsPerSecond", String.format("%.0f", perSecond));
+        testReporter.publishEntry(report);
+    }
+
+    private boolean supportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 模拟I/O密集的接口：设置当前用户id，等待远程调用返回后再读取
+     */
+    private static class IoServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            BaseContext.setCurrentId(Long.valueOf(request.getParameter("userId")));
+            try {
+                TimeUnit.MILLISECONDS.sleep(IO_MILLIS);
+                response.getWriter().write(String.valueOf(BaseContext.getCurrentId()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.setStatus(500);
+            } finally {
+                BaseContext.removeCurrentId();
+            }
+        }
+    }
+
+    private static class Result {
+        private final int requests;
+        private final long elapsedNanos;
+
+        Result(int requests, long elapsedNanos) {
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double perSecond() {
+            return requests * 1e9 / elapsedNanos;
+        }
+    }
+}
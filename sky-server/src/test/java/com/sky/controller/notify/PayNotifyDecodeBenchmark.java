@@ -0,0 +1,94 @@
+package com.sky.controller.notify;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.WeChatProperties;
+import com.sky.utils.WeChatPayDecryptor;
+import com.wechat.pay.contrib.apache.httpclient.util.AesUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付回调解码（读取请求体 + 解密）的基准测试
+ * legacy：逐行读取请求体到StringBuilder，每次回调都创建新的AesUtil
+ * cached：PayNotifyController当前的实现，复用读取缓冲区和Cipher，密钥只构造一次
+ * 运行main方法，或 mvn -pl sky-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.sky.controller.notify.PayNotifyDecodeBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PayNotifyDecodeBenchmark {
+    private byte[] body;
+    private PayNotifyController controller;
+
+    @Setup
+    public void setup() throws Exception {
+        body = new StubPayNotifier().body(0);
+
+        WeChatProperties weChatProperties = new WeChatProperties();
+        weChatProperties.setApiV3Key(StubPayNotifier.API_V3_KEY);
+        WeChatPayDecryptor decryptor = new WeChatPayDecryptor();
+        ReflectionTestUtils.setField(decryptor, "weChatProperties", weChatProperties);
+        controller = new PayNotifyController();
+        ReflectionTestUtils.setField(controller, "weChatPayDecryptor", decryptor);
+    }
+
+    @Benchmark
+    public String legacy() throws Exception {
+        HttpServletRequest request = request();
+        BufferedReader reader = request.getReader();
+        StringBuilder result = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (result.length() > 0) {
+                result.append("\n");
+            }
+            result.append(line);
+        }
+
+        JSONObject resource = JSON.parseObject(result.toString()).getJSONObject("resource");
+        AesUtil aesUtil = new AesUtil(StubPayNotifier.API_V3_KEY.getBytes(StandardCharsets.UTF_8));
+        return aesUtil.decryptToString(resource.getString("associated_data").getBytes(StandardCharsets.UTF_8),
+                resource.getString("nonce").getBytes(StandardCharsets.UTF_8),
+                resource.getString("ciphertext"));
+    }
+
+    @Benchmark
+    public String cached() throws Exception {
+        return controller.decryptData(controller.readData(request()));
+    }
+
+    private HttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/notify/paySuccess");
+        request.setCharacterEncoding("UTF-8");
+        request.setContent(body);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PayNotifyDecodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
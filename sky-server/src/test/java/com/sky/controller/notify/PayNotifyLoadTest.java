@@ -0,0 +1,164 @@
+package com.sky.controller.notify;
+
+import com.sky.properties.PayNotifyProperties;
+import com.sky.properties.WeChatProperties;
+import com.sky.service.PayNotifyService;
+import com.sky.task.InMemoryPayNotifyRedis;
+import com.sky.task.PayNotifyQueue;
+import com.sky.utils.WeChatPayDecryptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 支付回调压测，由本地模拟的微信支付通知方并发发送加密通知，经真实的回调接口和支付通知队列处理
+ * 队列的Redis命令由内存实现代替；订单处理以固定耗时模拟，每10条中有1条首次处理失败、每100条中有1条始终失败
+ * 校验：所有回调都已响应，每条通知恰好成功处理一次，始终失败的通知在达到最大处理次数后进入死信队列，处理中和重试集合最终为空
+ * 响应时间和处理耗时通过TestReporter输出到测试报告
+ * 默认不执行，运行方式：mvn -pl sky-server test -Dtest=PayNotifyLoadTest -DloadTest=true
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+class PayNotifyLoadTest {
+    // 并发发送通知的线程数
+    private static final int NOTIFIERS = 16;
+    private static final int NOTIFICATIONS = 2000;
+    // 模拟的订单处理耗时（毫秒）
+    private static final long PROCESS_MILLIS = 5;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Test
+    void acknowledgesImmediatelyAndDrainsThroughRetriesAndDeadLetters(TestReporter testReporter) throws Exception {
+        InMemoryPayNotifyRedis redis = new InMemoryPayNotifyRedis();
+        Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> succeeded = new ConcurrentHashMap<>();
+        PayNotifyService payNotifyService = (transactionId, outTradeNo) -> {
+            int attempt = attempts.computeIfAbsent(outTradeNo, k -> new AtomicInteger()).incrementAndGet();
+            sleep(PROCESS_MILLIS);
+            long seq = Long.parseLong(outTradeNo) - Long.parseLong(StubPayNotifier.outTradeNo(0));
+            if (seq % 100 == 0 || (seq % 10 == 0 && attempt == 1)) {
+                throw new IllegalStateException("模拟处理失败");
+            }
+            succeeded.computeIfAbsent(outTradeNo, k -> new AtomicInteger()).incrementAndGet();
+        };
+
+        PayNotifyProperties payNotifyProperties = new PayNotifyProperties();
+        payNotifyProperties.setWorkers(8);
+        payNotifyProperties.setIdleMillis(5);
+        payNotifyProperties.setMaxAttempts(MAX_ATTEMPTS);
+        payNotifyProperties.setRetryBackoffMillis(10);
+        PayNotifyQueue queue = new PayNotifyQueue();
+        ReflectionTestUtils.setField(queue, "stringRedisTemplate", redis.template());
+        ReflectionTestUtils.setField(queue, "payNotifyService", payNotifyService);
+        ReflectionTestUtils.setField(queue, "payNotifyProperties", payNotifyProperties);
+        queue.start();
+        // 代替@Scheduled，定时放回到期的重试
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(queue::moveDueRetries, 10, 10, TimeUnit.MILLISECONDS);
+
+        try {
+            long start = System.nanoTime();
+            long[] latencies = sendAll(controller(queue));
+            long sentNanos = System.nanoTime() - start;
+
+            int expectedDead = (NOTIFICATIONS + 99) / 100;
+            long deadline = System.currentTimeMillis() + 60000;
+            while (succeeded.size() + redis.list(InMemoryPayNotifyRedis.DEAD).size() < NOTIFICATIONS
+                    || !redis.zset(InMemoryPayNotifyRedis.LEASES).isEmpty()) {
+                assertTrue(System.currentTimeMillis() < deadline, "支付通知未在60秒内处理完");
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            long drainedNanos = System.nanoTime() - start;
+
+            assertEquals(NOTIFICATIONS - expectedDead, succeeded.size());
+            assertTrue(succeeded.values().stream().allMatch(count -> count.get() == 1), "存在重复成功处理的通知");
+            assertEquals(expectedDead, redis.list(InMemoryPayNotifyRedis.DEAD).size());
+            for (int i = 0; i < NOTIFICATIONS; i += 100) {
+                assertEquals(MAX_ATTEMPTS, attempts.get(StubPayNotifier.outTradeNo(i)).get());
+            }
+            assertTrue(redis.list(InMemoryPayNotifyRedis.QUEUE).isEmpty());
+            assertTrue(redis.zset(InMemoryPayNotifyRedis.RETRY).isEmpty());
+
+            Arrays.sort(latencies);
+            Map<String, String> report = new HashMap<>();
+            report.put("notifications", String.valueOf(NOTIFICATIONS));
+            report.put("ackP50Millis", String.format("%.2f", latencies[latencies.length / 2] / 1e6));
+            report.put("ackP99Millis", String.format("%.2f", latencies[latencies.length * 99 / 100] / 1e6));
+            report.put("ackPerSecond", String.format("%.0f", NOTIFICATIONS * 1e9 / sentNanos));
+            report.put("drainMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(drainedNanos)));
+            testReporter.publishEntry(report);
+        } finally {
+            scheduler.shutdownNow();
+            queue.stop();
+        }
+    }
+
+    private PayNotifyController controller(PayNotifyQueue payNotifyQueue) {
+        WeChatProperties weChatProperties = new WeChatProperties();
+        weChatProperties.setApiV3Key(StubPayNotifier.API_V3_KEY);
+        WeChatPayDecryptor decryptor = new WeChatPayDecryptor();
+        ReflectionTestUtils.setField(decryptor, "weChatProperties", weChatProperties);
+
+        PayNotifyController controller = new PayNotifyController();
+        ReflectionTestUtils.setField(controller, "payNotifyQueue", payNotifyQueue);
+        ReflectionTestUtils.setField(controller, "weChatPayDecryptor", decryptor);
+        return controller;
+    }
+
+    /**
+     * 并发发送全部通知，返回每条通知的响应时间（纳秒）
+     */
+    private long[] sendAll(PayNotifyController controller) throws Exception {
+        StubPayNotifier notifier = new StubPayNotifier();
+        long[] latencies = new long[NOTIFICATIONS];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(NOTIFIERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < NOTIFIERS; t++) {
+            futures.add(pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < NOTIFICATIONS) {
+                    MockHttpServletRequest request = notifier.request(i);
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    long begin = System.nanoTime();
+                    controller.paySuccessNotify(request, response);
+                    latencies[i] = System.nanoTime() - begin;
+                    assertEquals(200, response.getStatus());
+                    assertTrue(response.getContentAsString().contains("SUCCESS"));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return latencies;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sky.controller.notify;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 本地模拟的微信支付通知方，按APIv3的格式（AEAD_AES_256_GCM）加密支付成功通知，供压测和基准测试使用
+ */
+class StubPayNotifier {
+    static final String API_V3_KEY = "0123456789abcdefghijklmnopqrstuv";
+
+    private final SecretKeySpec key = new SecretKeySpec(API_V3_KEY.getBytes(StandardCharsets.UTF_8), "AES");
+
+    /**
+     * 第i条通知的订单号
+     */
+    static String outTradeNo(int i) {
+        return String.valueOf(1700000000000L + i);
+    }
+
+    /**
+     * 第i条通知的微信支付交易号
+     */
+    static String transactionId(int i) {
+        return "42000" + i;
+    }
+
+    /**
+     * 第i条通知的请求体
+     */
+    byte[] body(int i) throws Exception {
+        String nonce = String.format("%012d", i);
+        JSONObject transaction = new JSONObject();
+        transaction.put("out_trade_no", outTradeNo(i));
+        transaction.put("transaction_id", transactionId(i));
+        transaction.put("trade_state", "SUCCESS");
+        transaction.put("amount", JSON.parseObject("{\"total\":3800,\"currency\":\"CNY\"}"));
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce.getBytes(StandardCharsets.UTF_8)));
+        cipher.updateAAD("transaction".getBytes(StandardCharsets.UTF_8));
+        byte[] ciphertext = cipher.doFinal(transaction.toJSONString().getBytes(StandardCharsets.UTF_8));
+
+        JSONObject resource = new JSONObject();
+        resource.put("algorithm", "AEAD_AES_256_GCM");
+        resource.put("ciphertext", Base64.getEncoder().encodeToString(ciphertext));
+        resource.put("nonce", nonce);
+        resource.put("associated_data", "transaction");
+        JSONObject notification = new JSONObject();
+        notification.put("id", "notify-" + i);
+        notification.put("event_type", "TRANSACTION.SUCCESS");
+        notification.put("resource", resource);
+        return notification.toJSONString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 第i条通知的回调请求
+     */
+    MockHttpServletRequest request(int i) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/notify/paySuccess");
+        request.setContentType("application/json");
+        request.setCharacterEncoding("UTF-8");
+        request.setContent(body(i));
+        return request;
+    }
+}
@@ -0,0 +1,98 @@
+package com.sky.interceptor;
+
+import com.sky.constant.JwtClaimsConstant;
+import com.sky.properties.JwtProperties;
+import com.sky.service.TokenRevocationService;
+import com.sky.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理端jwt令牌校验拦截器每个请求的开销（preHandle + afterCompletion）
+ * cacheSize为0时缓存不保留任何令牌，每个请求都验签并解析，即未使用缓存时的开销
+ * 运行main方法，或 mvn -pl sky-server test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.sky.interceptor.JwtTokenInterceptorBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtTokenInterceptorBenchmark {
+    private static final String SECRET_KEY = "itcast";
+    private static final long TTL_MILLIS = 7200000;
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private JwtTokenAdminInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private HandlerMethod handler;
+
+    @Setup
+    public void setup() throws Exception {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setAdminSecretKey(SECRET_KEY);
+        jwtProperties.setAdminTtl(TTL_MILLIS);
+        jwtProperties.setAdminTokenName("token");
+        jwtProperties.setTokenCacheSize(cacheSize);
+
+        interceptor = new JwtTokenAdminInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtProperties", jwtProperties);
+        ReflectionTestUtils.setField(interceptor, "tokenRevocationService", new TokenRevocationService() {
+            @Override
+            public void revoke(Claims claims) {
+            }
+
+            @Override
+            public void revokeEmployee(Long empId) {
+            }
+
+            @Override
+            public boolean isRevoked(Claims claims) {
+                return false;
+            }
+        });
+        interceptor.init();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtClaimsConstant.EMP_ID, 1L);
+        request = new MockHttpServletRequest("GET", "/admin/order/conditionSearch");
+        request.addHeader("token", JwtUtil.createJWT(SECRET_KEY, TTL_MILLIS, claims));
+        response = new MockHttpServletResponse();
+        handler = new HandlerMethod(this, JwtTokenInterceptorBenchmark.class.getMethod("setup"));
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        boolean allowed = interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+        return allowed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtTokenInterceptorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.sky.interceptor;
+
+import com.sky.constant.MessageConstant;
+import com.sky.properties.RateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitInterceptorTest {
+    private static final String PATH = "/user/order/reminder/{id}";
+
+    private StringRedisTemplate stringRedisTemplate;
+    private RateLimitInterceptor interceptor;
+    private HandlerMethod handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.setRules(Collections.singletonList(rule(2, 0.5)));
+
+        interceptor = new RateLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(interceptor, "rateLimitProperties", rateLimitProperties);
+        interceptor.init();
+        handler = new HandlerMethod(this, RateLimitInterceptorTest.class.getDeclaredMethod("setUp"));
+    }
+
+    @Test
+    void localBucketAllowsBurstUpToCapacity() {
+        RateLimitInterceptor.LocalTokenBucket bucket = new RateLimitInterceptor.LocalTokenBucket(rule(3, 1), 0);
+
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+    }
+
+    @Test
+    void localBucketRefillsByElapsedTimeAndCapsAtCapacity() {
+        RateLimitInterceptor.LocalTokenBucket bucket = new RateLimitInterceptor.LocalTokenBucket(rule(2, 2), 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+
+        // 每秒补充2个，500毫秒后补充1个
+        assertFalse(bucket.tryAcquire(499));
+        assertTrue(bucket.tryAcquire(500));
+        assertFalse(bucket.tryAcquire(500));
+
+        // 长时间无请求，令牌最多补满容量
+        assertTrue(bucket.tryAcquire(60_000));
+        assertTrue(bucket.tryAcquire(60_000));
+        assertFalse(bucket.tryAcquire(60_000));
+    }
+
+    @Test
+    void localBucketIgnoresClockGoingBackwards() {
+        RateLimitInterceptor.LocalTokenBucket bucket = new RateLimitInterceptor.LocalTokenBucket(rule(1, 1), 10_000);
+        assertTrue(bucket.tryAcquire(10_000));
+
+        assertFalse(bucket.tryAcquire(5_000));
+        assertTrue(bucket.tryAcquire(6_000));
+    }
+
+    @Test
+    void respondsTooManyRequestsWithRetryAfterWhenRedisBucketIsEmpty() throws Exception {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString())).thenReturn(0L);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request(), response, handler));
+
+        assertEquals(429, response.getStatus());
+        // 每秒补充0.5个令牌，2秒后才有下一个令牌
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertTrue(response.getContentType().startsWith("application/json"));
+        assertTrue(response.getContentAsString().contains(MessageConstant.REQUEST_TOO_FREQUENT));
+    }
+
+    @Test
+    void rejectsLocallyOnceBurstIsUsedUp() throws Exception {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString())).thenReturn(1L);
+
+        assertTrue(interceptor.preHandle(request(), new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(request(), new MockHttpServletResponse(), handler));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request(), response, handler));
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    void allowsRequestWhenRedisIsUnavailable() throws Exception {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString()))
+                .thenThrow(new IllegalStateException("connection refused"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request(), response, handler));
+        assertEquals(200, response.getStatus());
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/order/reminder/1");
+        request.setRemoteAddr("10.0.0.1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATH);
+        return request;
+    }
+
+    private static RateLimitProperties.Rule rule(int capacity, double refillPerSecond) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setPath(PATH);
+        rule.setCapacity(capacity);
+        rule.setRefillPerSecond(refillPerSecond);
+        return rule;
+    }
+}
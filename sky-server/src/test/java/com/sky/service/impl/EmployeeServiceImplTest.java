@@ -0,0 +1,125 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.dto.EmployeeLoginDTO;
+import com.sky.entity.Employee;
+import com.sky.exception.LoginFailedException;
+import com.sky.exception.PasswordErrorException;
+import com.sky.mapper.EmployeeMapper;
+import com.sky.properties.LoginProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeServiceImplTest {
+    private static final String USERNAME_KEY = "LOGIN_FAILURE::username::admin";
+    private static final String IP_KEY = "LOGIN_FAILURE::ip::10.0.0.1";
+
+    // 模拟Redis中的计数，脚本执行为一次原子的加1
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private EmployeeMapper employeeMapper;
+    private LoginProperties loginProperties;
+    private EmployeeServiceImpl employeeService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), anyString())).thenAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(1);
+            return counters.computeIfAbsent(keys.get(0), k -> new AtomicLong()).incrementAndGet();
+        });
+        when(stringRedisTemplate.delete(anyString())).thenAnswer(invocation -> counters.remove(invocation.<String>getArgument(0)) != null);
+        when(valueOperations.decrement(anyString())).thenAnswer(invocation -> counters.get(invocation.<String>getArgument(0)).decrementAndGet());
+
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        employeeMapper = mock(EmployeeMapper.class);
+        when(employeeMapper.getByUsername("admin")).thenReturn(Employee.builder()
+                .id(1L).username("admin").password(passwordEncoder.encode("123456")).status(StatusConstant.ENABLE).build());
+        loginProperties = new LoginProperties();
+
+        employeeService = new EmployeeServiceImpl();
+        ReflectionTestUtils.setField(employeeService, "employeeMapper", employeeMapper);
+        ReflectionTestUtils.setField(employeeService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(employeeService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(employeeService, "loginProperties", loginProperties);
+        employeeService.init();
+    }
+
+    @Test
+    void concurrentGuessesCannotExceedUsernameLimit() throws Exception {
+        int guesses = 20;
+        ExecutorService pool = Executors.newFixedThreadPool(guesses);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Class<?>>> futures = new ArrayList<>();
+        for (int i = 0; i < guesses; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    employeeService.login(login("wrong"), "10.0.0.1");
+                    return null;
+                } catch (RuntimeException e) {
+                    return e.getClass();
+                }
+            }));
+        }
+        start.countDown();
+
+        int passwordErrors = 0;
+        for (Future<Class<?>> future : futures) {
+            if (future.get() == PasswordErrorException.class) {
+                passwordErrors++;
+            }
+        }
+        pool.shutdown();
+        // 只有上限以内的请求比对了密码
+        assertEquals(loginProperties.getMaxUsernameFailures(), passwordErrors);
+        verify(employeeMapper, times(loginProperties.getMaxUsernameFailures())).getByUsername("admin");
+        assertThrows(LoginFailedException.class, () -> employeeService.login(login("123456"), "10.0.0.1"));
+    }
+
+    @Test
+    void successfulLoginClearsUsernameCountAndDoesNotCountAgainstIp() {
+        assertThrows(PasswordErrorException.class, () -> employeeService.login(login("wrong"), "10.0.0.1"));
+        assertEquals(1, counters.get(USERNAME_KEY).get());
+
+        employeeService.login(login("123456"), "10.0.0.1");
+
+        assertFalse(counters.containsKey(USERNAME_KEY));
+        assertEquals(1, counters.get(IP_KEY).get());
+    }
+
+    private EmployeeLoginDTO login(String password) {
+        EmployeeLoginDTO employeeLoginDTO = new EmployeeLoginDTO();
+        employeeLoginDTO.setUsername("admin");
+        employeeLoginDTO.setPassword(password);
+        return employeeLoginDTO;
+    }
+}
@@ -0,0 +1,82 @@
+package com.sky.service.impl;
+
+import com.sky.exception.OrderBusinessException;
+import com.sky.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PayNotifyServiceImplTest {
+    private static final String KEY = "PAY_NOTIFY::4200001";
+
+    private ValueOperations<String, String> valueOperations;
+    private StringRedisTemplate stringRedisTemplate;
+    private OrderService orderService;
+    private PayNotifyServiceImpl payNotifyService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        valueOperations = mock(ValueOperations.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        orderService = mock(OrderService.class);
+
+        payNotifyService = new PayNotifyServiceImpl();
+        ReflectionTestUtils.setField(payNotifyService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(payNotifyService, "orderService", orderService);
+    }
+
+    @Test
+    void marksDoneOnlyAfterOrderIsPaid() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+
+        payNotifyService.paySuccess("4200001", "1700000000001");
+
+        verify(orderService).paySuccess("1700000000001");
+        verify(valueOperations).set(KEY, "DONE", 24, TimeUnit.HOURS);
+    }
+
+    @Test
+    void skipsNotificationAlreadyDone() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("DONE");
+
+        payNotifyService.paySuccess("4200001", "1700000000001");
+
+        verify(orderService, never()).paySuccess(anyString());
+    }
+
+    @Test
+    void asksForRetryWhileAnotherWorkerHoldsTheLease() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("PROCESSING");
+
+        assertThrows(OrderBusinessException.class, () -> payNotifyService.paySuccess("4200001", "1700000000001"));
+        verify(orderService, never()).paySuccess(anyString());
+    }
+
+    @Test
+    void releasesLeaseWhenProcessingFailsWithError() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+        doThrow(new StackOverflowError()).when(orderService).paySuccess("1700000000001");
+
+        assertThrows(StackOverflowError.class, () -> payNotifyService.paySuccess("4200001", "1700000000001"));
+        verify(stringRedisTemplate).delete(KEY);
+        verify(valueOperations, never()).set(anyString(), eq("DONE"), anyLong(), eq(TimeUnit.HOURS));
+    }
+}
@@ -0,0 +1,83 @@
+package com.sky.statemachine;
+
+import com.sky.dto.OrdersTransitionDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderStateMachineTest {
+    private OrderMapper orderMapper;
+    private OrderStatusCounter orderStatusCounter;
+    private OrderStateMachine orderStateMachine;
+
+    @BeforeEach
+    void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        orderStatusCounter = mock(OrderStatusCounter.class);
+        orderStateMachine = new OrderStateMachine();
+        ReflectionTestUtils.setField(orderStateMachine, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(orderStateMachine, "orderStatusCounter", orderStatusCounter);
+    }
+
+    @Test
+    void returnsTheFromStatusThatMatched() {
+        // 订单处于“待接单”，第一次按“待付款”修改未命中
+        when(orderMapper.updateByStatus(any())).thenReturn(0, 1);
+
+        Orders order = Orders.builder().id(1L).build();
+        assertEquals(Orders.TO_BE_CONFIRMED, orderStateMachine.fire(OrderTransition.USER_CANCEL, order));
+
+        List<OrdersTransitionDTO> attempts = captureAttempts(2);
+        assertEquals(Orders.PENDING_PAYMENT, attempts.get(0).getFromStatus());
+        assertNull(attempts.get(0).getPayStatus());
+        assertEquals(Orders.TO_BE_CONFIRMED, attempts.get(1).getFromStatus());
+        // 已支付的订单取消后需要退款
+        assertEquals(Orders.REFUND, attempts.get(1).getPayStatus());
+        assertEquals(Orders.CANCELLED, order.getStatus());
+        verify(orderStatusCounter).onTransition(Orders.TO_BE_CONFIRMED, Orders.CANCELLED, 1);
+    }
+
+    @Test
+    void unpaidOrderIsCancelledWithoutRefund() {
+        when(orderMapper.updateByStatus(any())).thenReturn(1);
+
+        Orders order = Orders.builder().id(1L).build();
+        assertEquals(Orders.PENDING_PAYMENT, orderStateMachine.fire(OrderTransition.ADMIN_CANCEL, order));
+
+        List<OrdersTransitionDTO> attempts = captureAttempts(1);
+        assertNull(attempts.get(0).getPayStatus());
+    }
+
+    @Test
+    void returnsNullWhenNoFromStatusMatches() {
+        when(orderMapper.updateByStatus(any())).thenReturn(0);
+
+        Orders order = Orders.builder().id(1L).build();
+        assertNull(orderStateMachine.fire(OrderTransition.ADMIN_CANCEL, order));
+
+        captureAttempts(OrderTransition.ADMIN_CANCEL.getFromStatuses().size());
+        assertNull(order.getStatus());
+        verify(orderStatusCounter, never()).onTransition(any(), any(), anyLong());
+    }
+
+    private List<OrdersTransitionDTO> captureAttempts(int times) {
+        ArgumentCaptor<OrdersTransitionDTO> captor = ArgumentCaptor.forClass(OrdersTransitionDTO.class);
+        verify(orderMapper, times(times)).updateByStatus(captor.capture());
+        return captor.getAllValues();
+    }
+}
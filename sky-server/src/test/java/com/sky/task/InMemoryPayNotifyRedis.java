@@ -0,0 +1,132 @@
+package com.sky.task;
+
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 支付通知队列用到的Redis命令的内存实现，所有命令串行执行，与Redis单线程执行命令和脚本的语义一致
+ * 取出通知的脚本（返回String）：从队列右端弹出并按租约到期时间加入处理中的有序集合
+ * 移动到期通知的脚本（返回Long）：将有序集合中到期的成员移到队列左端
+ */
+public class InMemoryPayNotifyRedis {
+    public static final String QUEUE = "PAY_NOTIFY_QUEUE";
+    public static final String LEASES = "PAY_NOTIFY_LEASES";
+    public static final String RETRY = "PAY_NOTIFY_RETRY";
+    public static final String DEAD = "PAY_NOTIFY_DEAD";
+
+    private final Map<String, Deque<String>> lists = new HashMap<>();
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+
+    private final StringRedisTemplate template;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryPayNotifyRedis() {
+        ListOperations<String, String> listOperations = mock(ListOperations.class, invocation -> {
+            if ("leftPush".equals(invocation.getMethod().getName())) {
+                return leftPush(invocation.getArgument(0), invocation.getArgument(1));
+            }
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+        });
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class, invocation -> {
+            // 可变参数已展开为单独的参数
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "add":
+                    return zadd((String) args[0], (String) args[1], (Double) args[2]);
+                case "remove":
+                    return zrem((String) args[0], Arrays.copyOfRange(args, 1, args.length));
+                default:
+                    throw new UnsupportedOperationException(invocation.getMethod().getName());
+            }
+        });
+        template = mock(StringRedisTemplate.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "opsForList":
+                    return listOperations;
+                case "opsForZSet":
+                    return zSetOperations;
+                case "execute":
+                    if (args[0] instanceof RedisScript) {
+                        return script((RedisScript<?>) args[0], (List<String>) args[1], Arrays.copyOfRange(args, 2, args.length));
+                    }
+                    throw new UnsupportedOperationException("execute");
+                default:
+                    throw new UnsupportedOperationException(invocation.getMethod().getName());
+            }
+        });
+    }
+
+    public StringRedisTemplate template() {
+        return template;
+    }
+
+    public synchronized List<String> list(String key) {
+        return new ArrayList<>(lists.getOrDefault(key, new ArrayDeque<>()));
+    }
+
+    public synchronized Set<String> zset(String key) {
+        return new TreeSet<>(zsets.getOrDefault(key, new HashMap<>()).keySet());
+    }
+
+    private synchronized Long leftPush(String key, String value) {
+        Deque<String> list = lists.computeIfAbsent(key, k -> new ArrayDeque<>());
+        list.addFirst(value);
+        return (long) list.size();
+    }
+
+    private synchronized Boolean zadd(String key, String member, Double score) {
+        return zsets.computeIfAbsent(key, k -> new HashMap<>()).put(member, score) == null;
+    }
+
+    private synchronized Long zrem(String key, Object... members) {
+        Map<String, Double> zset = zsets.getOrDefault(key, new HashMap<>());
+        long removed = 0;
+        for (Object member : members) {
+            if (zset.remove(member) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private synchronized Object script(RedisScript<?> script, List<String> keys, Object[] args) {
+        if (script.getResultType() == String.class) {
+            Deque<String> queue = lists.getOrDefault(keys.get(0), new ArrayDeque<>());
+            String item = queue.pollLast();
+            if (item != null) {
+                zadd(keys.get(1), item, Double.valueOf(args[0].toString()));
+            }
+            return item;
+        }
+
+        double now = Double.parseDouble(args[0].toString());
+        int limit = Integer.parseInt(args[1].toString());
+        Map<String, Double> zset = zsets.getOrDefault(keys.get(0), new HashMap<>());
+        List<String> due = new ArrayList<>();
+        zset.forEach((member, score) -> {
+            if (score <= now && due.size() < limit) {
+                due.add(member);
+            }
+        });
+        for (String member : due) {
+            zset.remove(member);
+            leftPush(keys.get(1), member);
+        }
+        return (long) due.size();
+    }
+}
@@ -0,0 +1,112 @@
+package com.sky.task;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.properties.PayNotifyProperties;
+import com.sky.service.PayNotifyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PayNotifyQueueTest {
+    private InMemoryPayNotifyRedis redis;
+    private PayNotifyService payNotifyService;
+    private PayNotifyProperties payNotifyProperties;
+    private PayNotifyQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        redis = new InMemoryPayNotifyRedis();
+        payNotifyService = mock(PayNotifyService.class);
+        payNotifyProperties = new PayNotifyProperties();
+        payNotifyProperties.setWorkers(2);
+        payNotifyProperties.setIdleMillis(5);
+        payNotifyProperties.setMaxAttempts(3);
+        payNotifyProperties.setRetryBackoffMillis(1);
+
+        queue = new PayNotifyQueue();
+        ReflectionTestUtils.setField(queue, "stringRedisTemplate", redis.template());
+        ReflectionTestUtils.setField(queue, "payNotifyService", payNotifyService);
+        ReflectionTestUtils.setField(queue, "payNotifyProperties", payNotifyProperties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        // 只调用moveDueRetries的用例没有启动处理线程
+        if (ReflectionTestUtils.getField(queue, "workers") != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void processedNotificationLeavesNoLease() throws Exception {
+        queue.start();
+        queue.push("4200001", "1700000000001");
+
+        await(() -> redis.list(InMemoryPayNotifyRedis.QUEUE).isEmpty() && redis.zset(InMemoryPayNotifyRedis.LEASES).isEmpty());
+        verify(payNotifyService).paySuccess("4200001", "1700000000001");
+        assertTrue(redis.zset(InMemoryPayNotifyRedis.RETRY).isEmpty());
+        assertTrue(redis.list(InMemoryPayNotifyRedis.DEAD).isEmpty());
+    }
+
+    @Test
+    void failingNotificationIsRetriedThenDeadLettered() throws Exception {
+        doThrow(new IllegalStateException("db down")).when(payNotifyService).paySuccess(anyString(), anyString());
+        queue.start();
+        queue.push("4200001", "1700000000001");
+
+        await(() -> {
+            queue.moveDueRetries();
+            return !redis.list(InMemoryPayNotifyRedis.DEAD).isEmpty();
+        });
+        verify(payNotifyService, times(3)).paySuccess("4200001", "1700000000001");
+        PayNotifyQueue.PayNotification dead = JSON.parseObject(redis.list(InMemoryPayNotifyRedis.DEAD).get(0),
+                PayNotifyQueue.PayNotification.class);
+        assertEquals(3, dead.getAttempts());
+        assertTrue(redis.zset(InMemoryPayNotifyRedis.RETRY).isEmpty());
+        assertTrue(redis.zset(InMemoryPayNotifyRedis.LEASES).isEmpty());
+    }
+
+    @Test
+    void malformedNotificationIsDeadLetteredInsteadOfStuck() throws Exception {
+        redis.template().opsForList().leftPush(InMemoryPayNotifyRedis.QUEUE, "{broken");
+        queue.start();
+
+        await(() -> !redis.list(InMemoryPayNotifyRedis.DEAD).isEmpty());
+        assertEquals(Collections.singletonList("{broken"), redis.list(InMemoryPayNotifyRedis.DEAD));
+        assertTrue(redis.zset(InMemoryPayNotifyRedis.LEASES).isEmpty());
+    }
+
+    @Test
+    void onlyExpiredLeasesAreReturnedToQueue() {
+        long now = System.currentTimeMillis();
+        // 其他节点正在处理的通知，租约未到期
+        redis.template().opsForZSet().add(InMemoryPayNotifyRedis.LEASES, "in-flight", now + 60000);
+        // 宕机节点遗留的通知，租约已到期
+        redis.template().opsForZSet().add(InMemoryPayNotifyRedis.LEASES, "abandoned", now - 1);
+
+        queue.moveDueRetries();
+
+        assertEquals(Collections.singletonList("abandoned"), redis.list(InMemoryPayNotifyRedis.QUEUE));
+        assertEquals(Collections.singleton("in-flight"), redis.zset(InMemoryPayNotifyRedis.LEASES));
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+}
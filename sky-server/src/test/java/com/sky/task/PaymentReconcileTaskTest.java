@@ -0,0 +1,146 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.PayReconcileProperties;
+import com.sky.properties.WeChatProperties;
+import com.sky.service.PayNotifyService;
+import com.sky.utils.WeChatPayUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通过接口地址配置将真实的WeChatPayUtil指向本地模拟的微信支付查单接口
+ */
+class PaymentReconcileTaskTest {
+    private static final String MCHID = "1900000001";
+    private static final String QUERY_PATH = "/v3/pay/transactions/out-trade-no/";
+
+    private HttpServer server;
+    // 商户订单号 -> 模拟的响应状态码及响应体
+    private final Map<String, Object[]> trades = new ConcurrentHashMap<>();
+    // 商户订单号 -> 查询请求的完整地址
+    private final Map<String, String> requests = new ConcurrentHashMap<>();
+
+    private OrderMapper orderMapper;
+    private PayNotifyService payNotifyService;
+    private WeChatPayUtil weChatPayUtil;
+    private PaymentReconcileTask task;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(QUERY_PATH, this::queryByOutTradeNo);
+        server.start();
+
+        WeChatProperties weChatProperties = new WeChatProperties();
+        weChatProperties.setMchid(MCHID);
+        weChatProperties.setMchSerialNo("TESTSERIAL");
+        weChatProperties.setPrivateKeyFilePath(resource("apiclient_key.pem"));
+        weChatProperties.setWeChatPayCertFilePath(resource("platform_cert.pem"));
+        weChatProperties.setApiBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        weChatPayUtil = new WeChatPayUtil();
+        ReflectionTestUtils.setField(weChatPayUtil, "weChatProperties", weChatProperties);
+
+        orderMapper = mock(OrderMapper.class);
+        payNotifyService = mock(PayNotifyService.class);
+        PayReconcileProperties payReconcileProperties = new PayReconcileProperties();
+        payReconcileProperties.setPermitsPerSecond(1000);
+
+        task = new PaymentReconcileTask();
+        ReflectionTestUtils.setField(task, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(task, "weChatPayUtil", weChatPayUtil);
+        ReflectionTestUtils.setField(task, "payNotifyService", payNotifyService);
+        ReflectionTestUtils.setField(task, "payReconcileProperties", payReconcileProperties);
+        task.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        task.destroy();
+        weChatPayUtil.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void keepsPaidAndUnknownOrdersOutOfTimeoutCancel() {
+        List<Long> ids = Arrays.asList(1L, 2L, 3L, 4L);
+        when(orderMapper.getByIdsAndStatus(ids, Orders.PENDING_PAYMENT)).thenReturn(Arrays.asList(
+                Orders.builder().id(1L).number("N1").build(),
+                Orders.builder().id(2L).number("N2").build(),
+                Orders.builder().id(3L).number("N3").build(),
+                Orders.builder().id(4L).number("N4").build()));
+        trades.put("N1", new Object[]{200, "{\"out_trade_no\":\"N1\",\"trade_state\":\"NOTPAY\"}"});
+        // 通知在最后一分钟丢失，订单实际已支付
+        trades.put("N2", new Object[]{200, "{\"out_trade_no\":\"N2\",\"trade_state\":\"SUCCESS\",\"transaction_id\":\"4200002\"}"});
+        trades.put("N3", new Object[]{500, "{\"code\":\"SYSTEM_ERROR\",\"message\":\"系统错误\"}"});
+        // 用户未发起支付，微信支付没有这笔订单
+        trades.put("N4", new Object[]{404, "{\"code\":\"ORDER_NOT_EXIST\",\"message\":\"订单不存在\"}"});
+
+        assertEquals(Arrays.asList(1L, 4L), sorted(task.filterUnpaid(ids)));
+        verify(payNotifyService).paySuccess("4200002", "N2");
+        verify(payNotifyService, never()).paySuccess(anyString(), eq("N1"));
+        verify(payNotifyService, never()).paySuccess(anyString(), eq("N3"));
+        assertEquals(QUERY_PATH + "N1?mchid=" + MCHID, requests.get("N1"));
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    void unreachablePayApiKeepsOrdersOutOfTimeoutCancel() {
+        List<Long> ids = Collections.singletonList(1L);
+        when(orderMapper.getByIdsAndStatus(ids, Orders.PENDING_PAYMENT))
+                .thenReturn(Collections.singletonList(Orders.builder().id(1L).number("N1").build()));
+        server.stop(0);
+
+        assertEquals(Collections.emptyList(), task.filterUnpaid(ids));
+        verify(payNotifyService, never()).paySuccess(anyString(), anyString());
+    }
+
+    /**
+     * 模拟微信支付的商户订单号查询订单接口
+     */
+    private void queryByOutTradeNo(HttpExchange exchange) throws IOException {
+        String outTradeNo = exchange.getRequestURI().getPath().substring(QUERY_PATH.length());
+        requests.put(outTradeNo, exchange.getRequestURI().toString());
+        Object[] trade = trades.get(outTradeNo);
+        byte[] body = (trade == null ? "{}" : (String) trade[1]).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(trade == null ? 404 : (Integer) trade[0], body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private List<Long> sorted(List<Long> ids) {
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private String resource(String name) throws Exception {
+        return Paths.get(getClass().getResource("/wechatpay/" + name).toURI()).toString();
+    }
+}
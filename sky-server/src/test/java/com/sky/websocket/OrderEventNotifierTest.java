@@ -0,0 +1,77 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.constant.WebSocketConstant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderEventNotifierTest {
+    private WebSocketServer webSocketServer;
+    private OrderEventOutbox orderEventOutbox;
+    private OrderEventNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        webSocketServer = mock(WebSocketServer.class);
+        orderEventOutbox = mock(OrderEventOutbox.class);
+        ThreadPoolTaskExecutor notifyExecutor = mock(ThreadPoolTaskExecutor.class);
+        // 在当前线程执行，便于断言
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(notifyExecutor).execute(any(Runnable.class));
+
+        notifier = new OrderEventNotifier();
+        ReflectionTestUtils.setField(notifier, "webSocketServer", webSocketServer);
+        ReflectionTestUtils.setField(notifier, "orderEventOutbox", orderEventOutbox);
+        ReflectionTestUtils.setField(notifier, "notifyExecutor", notifyExecutor);
+    }
+
+    @Test
+    void pushesWithEventIdRecoveredByRetry() {
+        when(orderEventOutbox.append(eq(WebSocketConstant.GROUP_SHOP), anyString())).thenReturn(null);
+        when(orderEventOutbox.retryAppend(eq(WebSocketConstant.GROUP_SHOP), anyString())).thenReturn("1-0");
+
+        notifier.notifyShop(message(), null);
+
+        ArgumentCaptor<String> pushed = ArgumentCaptor.forClass(String.class);
+        verify(webSocketServer).sendEvent(eq(WebSocketConstant.GROUP_SHOP), eq("1-0"), pushed.capture(), isNull());
+        assertEquals("1-0", JSON.parseObject(pushed.getValue()).getString("eventId"));
+    }
+
+    @Test
+    void lostEventIsPushedWithoutEventIdField() {
+        when(orderEventOutbox.append(eq(WebSocketConstant.GROUP_SHOP), anyString())).thenReturn(null);
+        when(orderEventOutbox.retryAppend(eq(WebSocketConstant.GROUP_SHOP), anyString())).thenReturn(null);
+
+        notifier.notifyShop(message(), null);
+
+        ArgumentCaptor<String> pushed = ArgumentCaptor.forClass(String.class);
+        verify(webSocketServer).sendEvent(eq(WebSocketConstant.GROUP_SHOP), isNull(), pushed.capture(), isNull());
+        assertFalse(JSON.parseObject(pushed.getValue()).containsKey("eventId"));
+    }
+
+    private Map<Object, Object> message() {
+        Map<Object, Object> paramMap = new HashMap<>();
+        paramMap.put("type", 1);
+        paramMap.put("orderId", 1L);
+        return paramMap;
+    }
+}
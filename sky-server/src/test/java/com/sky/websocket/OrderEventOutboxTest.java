@@ -0,0 +1,59 @@
+package com.sky.websocket;
+
+import com.sky.properties.WebSocketProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderEventOutboxTest {
+    private StringRedisTemplate stringRedisTemplate;
+    private OrderEventOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        WebSocketProperties webSocketProperties = new WebSocketProperties();
+        webSocketProperties.setOutboxRetryBackoffMillis(1);
+        outbox = new OrderEventOutbox();
+        ReflectionTestUtils.setField(outbox, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(outbox, "webSocketProperties", webSocketProperties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retriesUntilAppendSucceeds() {
+        when(stringRedisTemplate.execute(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(RecordId.of("1700000000000-0"));
+
+        assertNull(outbox.append("shop", "{}"));
+        assertEquals("1700000000000-0", outbox.retryAppend("shop", "{}"));
+        assertEquals(2L, outbox.getMetrics().get("failed"));
+        assertEquals(1L, outbox.getMetrics().get("recovered"));
+        assertEquals(0L, outbox.getMetrics().get("lost"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsEventAsLostAfterAllAttempts() {
+        when(stringRedisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(outbox.retryAppend("shop", "{}"));
+        verify(stringRedisTemplate, times(3)).execute(any(RedisCallback.class));
+        assertEquals(3L, outbox.getMetrics().get("failed"));
+        assertEquals(1L, outbox.getMetrics().get("lost"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.sky.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import javax.websocket.Session;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class WebSocketClientTest {
+
+    @Test
+    void marksEachOrderEventOnce() {
+        WebSocketClient client = new WebSocketClient("1", mock(Session.class), Collections.singleton("shop"), 16);
+
+        // 实时推送先到，补发时跳过同一事件
+        assertTrue(client.markEvent("1700000000000-0"));
+        assertFalse(client.markEvent("1700000000000-0"));
+        assertTrue(client.markEvent("1700000000000-1"));
+    }
+
+    @Test
+    void forgetsOldestEventIdsBeyondLimit() {
+        WebSocketClient client = new WebSocketClient("1", mock(Session.class), Collections.singleton("shop"), 16);
+        for (int i = 0; i <= 512; i++) {
+            assertTrue(client.markEvent("e" + i));
+        }
+
+        assertTrue(client.markEvent("e0"));
+        assertFalse(client.markEvent("e512"));
+    }
+}
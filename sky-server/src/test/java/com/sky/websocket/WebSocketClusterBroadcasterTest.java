@@ -0,0 +1,94 @@
+package com.sky.websocket;
+
+import com.sky.properties.WebSocketProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WebSocketClusterBroadcasterTest {
+    private StringRedisTemplate stringRedisTemplate;
+    private WebSocketSessionManager webSocketSessionManager;
+    private WebSocketClusterBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        webSocketSessionManager = mock(WebSocketSessionManager.class);
+        WebSocketProperties webSocketProperties = new WebSocketProperties();
+        webSocketProperties.setClusterEnabled(true);
+
+        broadcaster = new WebSocketClusterBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(broadcaster, "webSocketSessionManager", webSocketSessionManager);
+        ReflectionTestUtils.setField(broadcaster, "webSocketProperties", webSocketProperties);
+    }
+
+    @Test
+    void deliversEnvelopeWithSameIdOnlyOnce() {
+        broadcaster.publish("shop", "order:1", "{\"type\":1}");
+
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(WebSocketClusterBroadcaster.CHANNEL), published.capture());
+        verify(webSocketSessionManager, never()).sendToGroup(anyString(), anyString(), anyString(), any());
+
+        byte[] body = published.getValue().getBytes(StandardCharsets.UTF_8);
+        broadcaster.onMessage(new DefaultMessage(WebSocketClusterBroadcaster.CHANNEL.getBytes(StandardCharsets.UTF_8), body), null);
+        broadcaster.onMessage(new DefaultMessage(WebSocketClusterBroadcaster.CHANNEL.getBytes(StandardCharsets.UTF_8), body), null);
+
+        verify(webSocketSessionManager, times(1)).sendToGroup("shop", "{\"type\":1}", "order:1", null);
+    }
+
+    @Test
+    void doesNotRedeliverLocalFallbackWhenEnvelopeArrivesFromRedis() {
+        doThrow(new IllegalStateException("connection reset"))
+                .when(stringRedisTemplate).convertAndSend(eq(WebSocketClusterBroadcaster.CHANNEL), anyString());
+
+        broadcaster.publish(null, null, "hello");
+        verify(webSocketSessionManager, times(1)).broadcast("hello", null);
+
+        // 发布报错时消息可能已到达Redis，随后又经频道回到本节点
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(WebSocketClusterBroadcaster.CHANNEL), published.capture());
+        broadcaster.onMessage(new DefaultMessage(WebSocketClusterBroadcaster.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                published.getValue().getBytes(StandardCharsets.UTF_8)), null);
+
+        verify(webSocketSessionManager, times(1)).broadcast("hello", null);
+    }
+
+    @Test
+    void parsesEnvelopeFromChannelMessage() {
+        WebSocketEnvelope envelope = WebSocketClusterBroadcaster.parse(
+                "{\"id\":\"e1\",\"origin\":\"n1\",\"target\":\"shop\",\"key\":\"k\",\"payload\":\"催单\"}"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("e1", envelope.getId());
+        assertEquals("n1", envelope.getOrigin());
+        assertEquals("shop", envelope.getTarget());
+        assertEquals("k", envelope.getKey());
+        assertEquals("催单", envelope.getPayload());
+    }
+
+    @Test
+    void marksEachIdOnce() {
+        assertTrue(broadcaster.markDelivered("e1"));
+        assertFalse(broadcaster.markDelivered("e1"));
+        assertTrue(broadcaster.markDelivered("e2"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.sky.websocket;
+
+import com.sky.properties.WebSocketProperties;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketSessionManagerTest {
+
+    @Test
+    void dropsFrameWhenSendCompletesAfterShutdown() {
+        WebSocketSessionManager manager = new WebSocketSessionManager();
+        ReflectionTestUtils.setField(manager, "webSocketProperties", new WebSocketProperties());
+        manager.init();
+
+        Session session = mock(Session.class);
+        RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAsyncRemote()).thenReturn(remote);
+        manager.register("1", session, Collections.singleton("shop"));
+
+        manager.sendToSession("1", "first", null);
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(remote, timeout(1000)).sendText(eq("first"), handler.capture());
+
+        // 应用关闭后容器的I/O线程才回调发送结果，不能因发送线程池已停止而抛出异常
+        manager.destroy();
+        handler.getValue().onResult(new SendResult());
+
+        assertEquals(1L, manager.getMetrics().get("sent"));
+        assertEquals(1L, manager.getMetrics().get("dropped"));
+    }
+}
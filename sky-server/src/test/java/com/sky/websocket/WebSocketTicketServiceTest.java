@@ -0,0 +1,75 @@
+package com.sky.websocket;
+
+import com.sky.constant.WebSocketConstant;
+import com.sky.entity.Employee;
+import com.sky.properties.WebSocketProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketTicketServiceTest {
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private WebSocketTicketService ticketService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        WebSocketProperties webSocketProperties = new WebSocketProperties();
+        webSocketProperties.setOrderAlertRoles(Collections.singletonList("manager"));
+        ticketService = new WebSocketTicketService();
+        ReflectionTestUtils.setField(ticketService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(ticketService, "webSocketProperties", webSocketProperties);
+    }
+
+    @Test
+    void issuesShortLivedTicketWithEmployeeRole() {
+        String ticket = ticketService.issue(Employee.builder().id(7L).role("manager").build());
+
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq("WS_TICKET::" + ticket), value.capture(), eq(30L), eq(TimeUnit.SECONDS));
+
+        when(valueOperations.get("WS_TICKET::" + ticket)).thenReturn(value.getValue());
+        when(stringRedisTemplate.delete("WS_TICKET::" + ticket)).thenReturn(true);
+        WebSocketTicketService.Ticket claims = ticketService.redeem(ticket);
+        assertEquals(7L, claims.getEmpId());
+        assertEquals("manager", claims.getRole());
+    }
+
+    @Test
+    void ticketCanOnlyBeRedeemedOnce() {
+        when(valueOperations.get(anyString())).thenReturn("{\"empId\":7,\"role\":\"manager\"}");
+        // 另一个连接已先删除该凭证
+        when(stringRedisTemplate.delete("WS_TICKET::t1")).thenReturn(false);
+
+        assertNull(ticketService.redeem("t1"));
+    }
+
+    @Test
+    void onlyOrderAlertRolesJoinShopGroup() {
+        assertEquals(new HashSet<>(Arrays.asList("role:manager", WebSocketConstant.GROUP_SHOP)),
+                ticketService.groupsOf(new WebSocketTicketService.Ticket(1L, "manager")));
+        assertEquals(Collections.singleton("role:kitchen"),
+                ticketService.groupsOf(new WebSocketTicketService.Ticket(2L, "kitchen")));
+    }
+}